@@ -0,0 +1,7 @@
+#!/bin/sh
+# One-shot schema update for the faststart image, which validates the schema at boot.
+# Starts the context with ddl-auto=update (eagerly, so the JPA layer is built), then exits.
+# Run it once per deploy, before the new version starts serving.
+exec java -XX:SharedArchiveFile=tracker.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=faststart \
+     -Dspring.jpa.hibernate.ddl-auto=update -Dspring.main.lazy-initialization=false \
+     -Dspring.context.exit=onRefresh -Dserver.port=0 -jar tracker-0.0.1-SNAPSHOT.jar
@@ -0,0 +1,43 @@
+package com.finance.tracker.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.resource.ResourceTransformerChain;
+import org.springframework.web.servlet.resource.ResourceTransformerSupport;
+import org.springframework.web.servlet.resource.TransformedResource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites local {@code <script src>} and {@code <link href>} references in HTML pages to
+ * their content-hashed URLs, the way {@code CssLinkResourceTransformer} does for stylesheets.
+ */
+public class HtmlLinkResourceTransformer extends ResourceTransformerSupport {
+
+    private static final Pattern ASSET_LINK = Pattern.compile(
+        "(<(?:script|link)\\b[^>]*?\\s(?:src|href)=\")([^\"#?:]+\\.(?:js|css))(\")");
+
+    @Override
+    public Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain transformerChain)
+            throws IOException {
+        resource = transformerChain.transform(request, resource);
+        String filename = resource.getFilename();
+        if (filename == null || !filename.endsWith(".html")) {
+            return resource;
+        }
+
+        String content = new String(resource.getContentAsByteArray(), StandardCharsets.UTF_8);
+        Matcher matcher = ASSET_LINK.matcher(content);
+        StringBuilder rewritten = new StringBuilder(content.length());
+        while (matcher.find()) {
+            String link = matcher.group(2);
+            String resolved = resolveUrlPath(toAbsolutePath(link, request), request, resource, transformerChain);
+            matcher.appendReplacement(rewritten,
+                Matcher.quoteReplacement(matcher.group(1) + (resolved != null ? resolved : link) + matcher.group(3)));
+        }
+        matcher.appendTail(rewritten);
+        return new TransformedResource(resource, rewritten.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
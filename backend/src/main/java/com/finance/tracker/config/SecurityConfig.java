@@ -2,6 +2,8 @@ package com.finance.tracker.config;
 
 import com.finance.tracker.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -32,13 +34,44 @@ import jakarta.servlet.http.HttpServletResponse;
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
+@Slf4j
 public class SecurityConfig {
 
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 14;
+
     private final UserRepository userRepository;
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.target-hash-millis:100}") long targetHashMillis) {
+        return new BCryptPasswordEncoder(calibrateBCryptStrength(targetHashMillis));
+    }
+
+    // Picks the BCrypt cost whose hash time is closest to the target on this machine.
+    // Each cost step doubles the work, so timing one mid-range cost is enough to extrapolate.
+    // Cheap hashes run first so the probe measures JIT-compiled code rather than the interpreter.
+    static int calibrateBCryptStrength(long targetHashMillis) {
+        BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(4);
+        for (int i = 0; i < 200; i++) {
+            warmup.encode("calibration");
+        }
+
+        int probeStrength = 8;
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(probeStrength);
+        long[] nanos = new long[5];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double probeMillis = Math.max(nanos[nanos.length / 2] / 1_000_000.0, 0.01);
+
+        int strength = probeStrength + (int) Math.round(Math.log(targetHashMillis / probeMillis) / Math.log(2));
+        strength = Math.max(MIN_BCRYPT_STRENGTH, Math.min(MAX_BCRYPT_STRENGTH, strength));
+        log.info("BCrypt strength {} (cost {} median {} ms, target {} ms)",
+            strength, probeStrength, String.format("%.2f", probeMillis), targetHashMillis);
+        return strength;
     }
 
     @Bean
@@ -52,10 +85,10 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -91,7 +124,8 @@ public class SecurityConfig {
             .authorizeHttpRequests(authorize -> authorize
                 .requestMatchers("/favicon.ico").permitAll()
                 .requestMatchers("/api/auth/**").permitAll() 
-                .requestMatchers("/", "/index.html", "/app.js", "/css/**", "/js/**", "/auth/**", "/assets/**").permitAll() 
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/", "/index.html", "/app.js", "/app-*.js", "/css/**", "/js/**", "/auth/**", "/assets/**").permitAll() 
                 .anyRequest().authenticated() 
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) 
@@ -109,7 +143,7 @@ public class SecurityConfig {
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowCredentials(true);
         config.setAllowedOriginPatterns(Arrays.asList("http://localhost:*", "http://127.0.0.1:*", "https://*.github.dev", "https://*.codespaces.githubusercontent.com"));
-        config.setAllowedHeaders(Arrays.asList(HttpHeaders.AUTHORIZATION, HttpHeaders.CONTENT_TYPE, "X-Auth-Token"));
+        config.setAllowedHeaders(Arrays.asList(HttpHeaders.AUTHORIZATION, HttpHeaders.CONTENT_TYPE, "X-Auth-Token", "X-Restore-Token"));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         config.setMaxAge(3600L);
         source.registerCorsConfiguration("/**", config);
@@ -0,0 +1,81 @@
+package com.finance.tracker.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Serves scripts and stylesheets under content-hashed file names (e.g. {@code app-<md5>.js}),
+ * preferring the {@code .br}/{@code .gz} variants generated at build time. Hashed names get an
+ * immutable one-year cache; the same files requested by their plain names are revalidated,
+ * since nothing in the URL changes when they do. HTML pages are revalidated on every visit
+ * and have their asset links rewritten to the hashed names. Replaces Boot's default mapping,
+ * which is switched off with {@code spring.web.resources.add-mappings=false}.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    // Directories (relative to the static locations) whose files get hashed names and long-lived caching
+    private static final String[] ASSET_DIRECTORIES = {"js/", "css/", "assets/"};
+    private static final String[] ASSET_PATTERNS = {"/*.js", "/js/**", "/css/**", "/assets/**"};
+    // Names produced by the content version strategy: <name>-<md5>.<ext>
+    private static final Pattern HASHED_NAME = Pattern.compile("-[0-9a-f]{32}\\.[^/]+$");
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
+    private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
+    private final WebProperties webProperties;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        String[] locations = webProperties.getResources().getStaticLocations();
+
+        addVersionedAssetHandler(registry, ASSET_PATTERNS[0], locations);
+        for (String directory : ASSET_DIRECTORIES) {
+            String[] directoryLocations = Arrays.stream(locations)
+                .map(location -> (location.endsWith("/") ? location : location + "/") + directory)
+                .toArray(String[]::new);
+            addVersionedAssetHandler(registry, "/" + directory + "**", directoryLocations);
+        }
+
+        registry.addResourceHandler("/**")
+            .addResourceLocations(locations)
+            .setCacheControl(CacheControl.noCache())
+            .resourceChain(true)
+            .addTransformer(new HtmlLinkResourceTransformer());
+    }
+
+    private void addVersionedAssetHandler(ResourceHandlerRegistry registry, String pattern, String[] locations) {
+        registry.addResourceHandler(pattern)
+            .addResourceLocations(locations)
+            .resourceChain(true)
+            .addResolver(new EncodedResourceResolver())
+            .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    // The asset handlers leave Cache-Control alone, so the header set here is the one sent
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                boolean hashed = HASHED_NAME.matcher(request.getRequestURI()).find();
+                response.setHeader(HttpHeaders.CACHE_CONTROL, hashed ? IMMUTABLE : REVALIDATE);
+                return true;
+            }
+        }).addPathPatterns(ASSET_PATTERNS);
+    }
+}
@@ -0,0 +1,52 @@
+package com.finance.tracker.config;
+
+import com.finance.tracker.exception.ServiceUnavailableException;
+import com.finance.tracker.service.WriteGate;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.util.Set;
+
+/**
+ * Holds the {@link WriteGate} open for the duration of every mutating API request, so a restore
+ * waits for them and new ones get a 503 while it runs. The admin backup endpoints are left out:
+ * the restore request itself takes the gate exclusively.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WriteGateConfig implements WebMvcConfigurer {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final String ENTERED = WriteGateConfig.class.getName() + ".entered";
+
+    private final WriteGate writeGate;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (SAFE_METHODS.contains(request.getMethod())) {
+                    return true;
+                }
+                if (!writeGate.tryEnter()) {
+                    throw new ServiceUnavailableException("A restore is in progress; try again shortly", 30);
+                }
+                request.setAttribute(ENTERED, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                if (request.getAttribute(ENTERED) != null) {
+                    request.removeAttribute(ENTERED);
+                    writeGate.exit();
+                }
+            }
+        }).addPathPatterns("/api/**").excludePathPatterns("/api/admin/backups/**");
+    }
+}
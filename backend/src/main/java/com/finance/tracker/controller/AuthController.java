@@ -5,6 +5,7 @@ import com.finance.tracker.dto.LoginRequest;
 import com.finance.tracker.dto.RegisterRequest;
 import com.finance.tracker.dto.ResetPasswordRequest; 
 import com.finance.tracker.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -19,22 +20,22 @@ public class AuthController {
     private final AuthService authService;
 
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> registerUser(@Valid @RequestBody RegisterRequest request) {
-        AuthResponse response = authService.register(request);
+    public ResponseEntity<AuthResponse> registerUser(@Valid @RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
+        AuthResponse response = authService.register(request, httpRequest.getRemoteAddr());
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> loginUser(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
+    public ResponseEntity<AuthResponse> loginUser(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        AuthResponse response = authService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok()
             .header("X-Auth-Token", response.getToken()) 
             .body(response);
     }
 
     @PostMapping("/forgot-password")
-    public ResponseEntity<AuthResponse> forgotPassword(@Valid @RequestBody ResetPasswordRequest request) {
-        AuthResponse response = authService.forgotPassword(request.getEmail(), request.getNewPassword(), request.getConfirmPassword());
+    public ResponseEntity<AuthResponse> forgotPassword(@Valid @RequestBody ResetPasswordRequest request, HttpServletRequest httpRequest) {
+        AuthResponse response = authService.forgotPassword(request.getEmail(), request.getNewPassword(), request.getConfirmPassword(), httpRequest.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
 
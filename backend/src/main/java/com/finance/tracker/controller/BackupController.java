@@ -0,0 +1,55 @@
+package com.finance.tracker.controller;
+
+import com.finance.tracker.dto.BackupResult;
+import com.finance.tracker.service.BackupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class BackupController {
+
+    private final BackupService backupService;
+
+    @PostMapping("/admin/backups")
+    public ResponseEntity<BackupResult> createBackup() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(backupService.createBackup());
+    }
+
+    @GetMapping("/admin/backups")
+    public ResponseEntity<List<String>> listBackups() {
+        return ResponseEntity.ok(backupService.listBackups());
+    }
+
+    @PostMapping("/admin/backups/{name}/restore")
+    public ResponseEntity<BackupResult> restoreBackup(
+        @PathVariable String name,
+        @RequestHeader(value = "X-Restore-Token", required = false) String restoreToken
+    ) {
+        return ResponseEntity.ok(backupService.restoreBackup(name, restoreToken));
+    }
+
+    @GetMapping("/backups/me")
+    public ResponseEntity<byte[]> exportCurrentUser() {
+        byte[] snapshot = backupService.exportCurrentUser();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", "transactions.ftsnap");
+        headers.setContentLength(snapshot.length);
+
+        return new ResponseEntity<>(snapshot, headers, HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/backups/me", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<BackupResult> importCurrentUser(@RequestBody byte[] snapshot) {
+        return ResponseEntity.ok(backupService.importCurrentUser(snapshot));
+    }
+}
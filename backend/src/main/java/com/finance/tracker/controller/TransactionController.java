@@ -1,8 +1,14 @@
 package com.finance.tracker.controller;
 
+import com.finance.tracker.dto.AmountDistribution;
+import com.finance.tracker.dto.AnomalyResponse;
+import com.finance.tracker.dto.BulkTransactionMutationRequest;
+import com.finance.tracker.dto.BulkTransactionRequest;
+import com.finance.tracker.dto.BulkTransactionResponse;
 import com.finance.tracker.dto.CreateTransactionDto;
 import com.finance.tracker.model.Transaction;
 import com.finance.tracker.service.TransactionService;
+import com.finance.tracker.dto.TransactionColumns;
 import com.finance.tracker.dto.TransactionResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +28,9 @@ import java.util.Map;
 @RequestMapping("/api/transactions")
 @RequiredArgsConstructor
 public class TransactionController {
+    // List endpoints negotiate JSON, Smile or CBOR from the Accept header.
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
     private final TransactionService transactionService;
 
     @PostMapping
@@ -34,12 +43,44 @@ public class TransactionController {
             .body(created);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkTransactionResponse> createTransactions(
+        @Valid @RequestBody BulkTransactionRequest request
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(transactionService.createTransactions(request));
+    }
+
+    @GetMapping("/duplicates")
+    public ResponseEntity<List<List<TransactionResponse>>> getDuplicateTransactions(
+        @RequestParam(defaultValue = "3") int windowDays
+    ) {
+        return ResponseEntity.ok(transactionService.findDuplicateTransactions(windowDays));
+    }
+
+    @GetMapping("/anomalies")
+    public ResponseEntity<List<AnomalyResponse>> getAnomalies(
+        @RequestParam(defaultValue = "100") int limit
+    ) {
+        return ResponseEntity.ok(transactionService.getAnomalies(limit));
+    }
+
     @GetMapping("/summary")
-    public Map<String, Double> getSummary() {
+    public Map<String, Object> getSummary() {
         return transactionService.getSummary();
     }
 
-    @GetMapping
+    @GetMapping("/stats/distribution")
+    public ResponseEntity<AmountDistribution> getAmountDistribution(
+        @RequestParam(required = false) String type,
+        @RequestParam(required = false) String category,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+        @RequestParam(defaultValue = "0.5,0.9,0.95,0.99") List<Double> quantiles
+    ) {
+        return ResponseEntity.ok(transactionService.getAmountDistribution(type, category, startDate, endDate, quantiles));
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     public ResponseEntity<List<TransactionResponse>> getAllTransactions(
         @RequestParam(required = false) String type,
         @RequestParam(required = false) String category,
@@ -49,6 +90,16 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.getAllTransactions(type, category, startDate, endDate));
     }
 
+    @GetMapping(value = "/columnar", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<TransactionColumns> getTransactionColumns(
+        @RequestParam(required = false) String type,
+        @RequestParam(required = false) String category,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        return ResponseEntity.ok(transactionService.getTransactionColumns(type, category, startDate, endDate));
+    }
+
     @GetMapping("/export")
     public ResponseEntity<byte[]> exportTransactions(
         @RequestParam(required = false) String type,
@@ -67,6 +118,21 @@ public class TransactionController {
         return new ResponseEntity<>(csvBytes, headers, HttpStatus.OK);
     }
 
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<Map<String, Integer>> deleteTransactions(@RequestBody BulkTransactionMutationRequest request) {
+        return ResponseEntity.ok(transactionService.deleteTransactions(request));
+    }
+
+    @PostMapping("/bulk-recategorize")
+    public ResponseEntity<Map<String, Integer>> recategorizeTransactions(@RequestBody BulkTransactionMutationRequest request) {
+        return ResponseEntity.ok(transactionService.recategorizeTransactions(request));
+    }
+
+    @PostMapping("/purge")
+    public ResponseEntity<Map<String, Integer>> purgeTransactions() {
+        return ResponseEntity.ok(transactionService.purgeTransactions());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<TransactionResponse> updateTransaction(
         @PathVariable Long id,
@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -21,6 +22,11 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Integer>> deleteAccount(@PathVariable Long id) {
+        return ResponseEntity.ok(userService.deleteAccount(id));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<User> updateProfile(@PathVariable Long id, @Valid @RequestBody User updatedUser) {
         User user = userService.updateProfile(id, updatedUser);
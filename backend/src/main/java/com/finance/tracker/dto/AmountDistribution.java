@@ -0,0 +1,19 @@
+package com.finance.tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmountDistribution {
+    private String currency;
+    private long count;
+    private Double min;
+    private Double max;
+    private Double mean;
+    // Requested quantile (e.g. "0.95") to estimated amount
+    private Map<String, Double> quantiles;
+}
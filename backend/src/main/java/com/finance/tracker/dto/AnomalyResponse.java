@@ -0,0 +1,27 @@
+package com.finance.tracker.dto;
+
+import com.finance.tracker.model.AnomalyReason;
+import com.finance.tracker.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnomalyResponse {
+    private Long transactionId;
+    private String title;
+    private Double amount;
+    private String currency;
+    private LocalDate date;
+    private TransactionType type;
+    private String category;
+    private AnomalyReason reason;
+    private double score;
+    // Typical amount for the category in the base currency, for unusual amounts
+    private Double expectedAmount;
+    private Instant detectedAt;
+}
@@ -0,0 +1,20 @@
+package com.finance.tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackupResult {
+    private String file;
+    private long users;
+    private long transactions;
+    private long bytes;
+    private long millis;
+    private double transactionsPerSecond;
+    private double megabytesPerSecond;
+    // Rows left out of an import because they duplicate existing transactions
+    private long skipped;
+}
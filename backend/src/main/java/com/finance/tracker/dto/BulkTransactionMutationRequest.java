@@ -0,0 +1,23 @@
+package com.finance.tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Selects transactions for a bulk delete or recategorize, either by id list or by the same
+ * filters as {@code GET /api/transactions}. {@code newCategory} is used by recategorize only.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransactionMutationRequest {
+    private List<Long> ids;
+    private String type;
+    private String category;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String newCategory;
+}
@@ -0,0 +1,17 @@
+package com.finance.tracker.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransactionRequest {
+    @NotEmpty(message = "At least one transaction is required")
+    private List<@Valid CreateTransactionDto> transactions;
+    private boolean skipDuplicates = true;
+}
@@ -0,0 +1,16 @@
+package com.finance.tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransactionResponse {
+    private int created;
+    private int skipped;
+    // Positions in the request of rows that matched an existing transaction (skipped or flagged)
+    private List<Integer> duplicateIndexes;
+}
@@ -22,4 +22,6 @@ public class CreateTransactionDto {
     @NotNull(message = "Transaction type is required")
     private TransactionType type;
     private String category;
+    @Pattern(regexp = "[A-Za-z]{3}", message = "Currency must be a 3-letter ISO code")
+    private String currency;
 }
\ No newline at end of file
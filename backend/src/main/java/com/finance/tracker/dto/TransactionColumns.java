@@ -0,0 +1,30 @@
+package com.finance.tracker.dto;
+
+import com.finance.tracker.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Column-oriented transaction list: one array per field instead of one object per row.
+ * Row {@code i} is {@code ids[i], titles[i], amounts[i], ...}. Types and categories are
+ * sent once as dictionaries and referenced by index ({@code -1} means no category), as are currencies.
+ * Dates are ISO epoch days.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionColumns {
+    private int count;
+    private TransactionType[] types;
+    private List<String> categories;
+    private List<String> currencies;
+    private long[] ids;
+    private String[] titles;
+    private double[] amounts;
+    private long[] epochDays;
+    private int[] typeIndexes;
+    private int[] categoryIndexes;
+    private int[] currencyIndexes;
+}
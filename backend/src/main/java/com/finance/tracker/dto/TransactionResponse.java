@@ -16,4 +16,5 @@ public class TransactionResponse {
     private LocalDate date;
     private TransactionType type;
     private String category;
+    private String currency;
 }
\ No newline at end of file
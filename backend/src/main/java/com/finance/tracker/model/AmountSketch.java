@@ -0,0 +1,44 @@
+package com.finance.tracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * Serialized t-digest of transaction amounts (in the owner's base currency) for one
+ * user, type, category and calendar month. Derived data: any row can be dropped and rebuilt
+ * from the transactions table.
+ */
+@Entity
+@Data
+@Table(name = "amount_sketch", uniqueConstraints = @UniqueConstraint(
+    name = "uk_amount_sketch_bucket", columnNames = {"user_id", "type", "category", "month_start"}))
+public class AmountSketch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+
+    // Lower-cased category; empty for uncategorized transactions
+    @Column(nullable = false)
+    private String category;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    private long count;
+
+    private double sum;
+
+    @Column(length = 16384)
+    private byte[] digest;
+
+    @Version
+    private Long version;
+}
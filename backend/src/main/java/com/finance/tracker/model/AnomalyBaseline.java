@@ -0,0 +1,23 @@
+package com.finance.tracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.Instant;
+
+/**
+ * Checkpoint of a user's anomaly detector state (per-category EWMA statistics and the filter of
+ * known titles), so a restart does not have to replay the user's history.
+ */
+@Entity
+@Data
+@Table(name = "anomaly_baseline")
+public class AnomalyBaseline {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(length = 65536)
+    private byte[] state;
+
+    private Instant updatedAt;
+}
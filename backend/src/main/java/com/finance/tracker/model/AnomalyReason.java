@@ -0,0 +1,6 @@
+package com.finance.tracker.model;
+
+public enum AnomalyReason {
+    UNUSUAL_AMOUNT,
+    NEW_TITLE
+}
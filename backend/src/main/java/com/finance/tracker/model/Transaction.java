@@ -5,10 +5,13 @@ import jakarta.validation.constraints.*;
 import lombok.Data;
 import java.time.LocalDate;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_transaction_user_fingerprint", columnList = "user_id, fingerprint"))
 @JsonIdentityInfo(
     generator = ObjectIdGenerators.PropertyGenerator.class,
     property = "id")
@@ -33,6 +36,19 @@ public class Transaction {
 
     private String category;
 
+    // ISO 4217 code; null on rows created before multi-currency support means the owner's base currency
+    @Column(length = 3)
+    private String currency;
+
+    // Hash of the normalized (date, amount, title, category), used to spot re-entered transactions
+    @JsonIgnore
+    private Long fingerprint;
+
+    // Set on create responses when an existing transaction has the same fingerprint
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long duplicateOf;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id") 
     private User user;
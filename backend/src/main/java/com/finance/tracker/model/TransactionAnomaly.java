@@ -0,0 +1,46 @@
+package com.finance.tracker.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import java.time.Instant;
+
+/** A transaction flagged by the anomaly detector; removed by the database with its transaction. */
+@Entity
+@Data
+@Table(name = "transaction_anomaly", indexes = {
+    @Index(name = "idx_transaction_anomaly_user", columnList = "user_id, detected_at"),
+    @Index(name = "idx_transaction_anomaly_transaction", columnList = "transaction_id")
+})
+public class TransactionAnomaly {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Transaction transaction;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AnomalyReason reason;
+
+    // Standard deviations above the category's typical (log) amount; 0 for new titles
+    private double score;
+
+    // Typical amount for the category when the transaction was scored, in the base currency
+    private Double expectedAmount;
+
+    @Column(name = "detected_at", nullable = false)
+    private Instant detectedAt;
+}
@@ -33,6 +33,25 @@ public class User {
 
     private String address;
 
+    @Pattern(regexp = "[A-Za-z]{3}", message = "Base currency must be a 3-letter ISO code")
+    @Column(length = 3)
+    private String baseCurrency;
+
+    // Bumped by a JPQL update on every data change; never written from the entity so a stale copy cannot roll it back
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private Long dataVersion;
+
+    // Set when single deletes left rows in the amount sketches; cleared once they are reconciled
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private Boolean sketchesStale;
+
+    // Fingerprint layout of this user's transactions; older layouts are re-hashed on next use
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private Integer fingerprintVersion;
+
     @NotBlank
     private String password;
 
@@ -0,0 +1,38 @@
+package com.finance.tracker.repository;
+
+import com.finance.tracker.model.AmountSketch;
+import com.finance.tracker.model.TransactionType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface AmountSketchRepository extends JpaRepository<AmountSketch, Long> {
+
+    Optional<AmountSketch> findByUserIdAndTypeAndCategoryAndMonthStart(
+        Long userId, TransactionType type, String category, LocalDate monthStart
+    );
+
+    // Null type/category select every type/category; months are inclusive
+    @Query("SELECT s FROM AmountSketch s WHERE s.userId = :userId " +
+           "AND (:type IS NULL OR s.type = :type) " +
+           "AND (:category IS NULL OR s.category = :category) " +
+           "AND s.monthStart >= :fromMonth AND s.monthStart <= :toMonth")
+    List<AmountSketch> findForRange(
+        Long userId, TransactionType type, String category, LocalDate fromMonth, LocalDate toMonth
+    );
+
+    // Bucket keys and row counts only: type, category, month start, count
+    @Query("SELECT s.type, s.category, s.monthStart, s.count FROM AmountSketch s WHERE s.userId = :userId")
+    List<Object[]> findCountsByUserId(Long userId);
+
+    boolean existsByUserId(Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AmountSketch s WHERE s.userId = :userId")
+    int deleteAllByUserId(Long userId);
+}
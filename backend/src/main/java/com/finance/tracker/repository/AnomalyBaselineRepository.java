@@ -0,0 +1,7 @@
+package com.finance.tracker.repository;
+
+import com.finance.tracker.model.AnomalyBaseline;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AnomalyBaselineRepository extends JpaRepository<AnomalyBaseline, Long> {
+}
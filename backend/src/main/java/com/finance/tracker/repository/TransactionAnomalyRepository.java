@@ -0,0 +1,24 @@
+package com.finance.tracker.repository;
+
+import com.finance.tracker.dto.AnomalyResponse;
+import com.finance.tracker.model.TransactionAnomaly;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+public interface TransactionAnomalyRepository extends JpaRepository<TransactionAnomaly, Long> {
+
+    @Query("SELECT new com.finance.tracker.dto.AnomalyResponse(t.id, t.title, t.amount, t.currency, t.date, t.type, t.category, " +
+           "a.reason, a.score, a.expectedAmount, a.detectedAt) " +
+           "FROM TransactionAnomaly a JOIN a.transaction t WHERE a.userId = :userId " +
+           "ORDER BY a.detectedAt DESC, a.id DESC")
+    List<AnomalyResponse> findResponsesByUserId(Long userId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TransactionAnomaly a WHERE a.transactionId = :transactionId")
+    int deleteByTransactionId(Long transactionId);
+}
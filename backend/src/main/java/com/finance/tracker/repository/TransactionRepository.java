@@ -1,9 +1,14 @@
 package com.finance.tracker.repository;
 
+import com.finance.tracker.dto.TransactionResponse;
 import com.finance.tracker.model.Transaction;
+import com.finance.tracker.model.TransactionType;
 import com.finance.tracker.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +22,125 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     List<Transaction> findAllByUserOrderByDateDesc(User user);
 
+    // Projects rows straight into the response DTO so list endpoints never hydrate entities.
+    // category is expected to be lower-cased by the caller; null arguments disable that filter.
+    @Query("SELECT new com.finance.tracker.dto.TransactionResponse(t.id, t.title, t.amount, t.date, t.type, t.category, t.currency) " +
+           "FROM Transaction t WHERE t.user = :user AND t.date IS NOT NULL " +
+           "AND (:type IS NULL OR t.type = :type) " +
+           "AND (:category IS NULL OR LOWER(t.category) = :category) " +
+           "AND (:startDate IS NULL OR t.date >= :startDate) " +
+           "AND (:endDate IS NULL OR t.date <= :endDate) " +
+           "ORDER BY t.date DESC, t.id DESC")
+    List<TransactionResponse> findResponsesByUser(
+        User user, TransactionType type, String category, LocalDate startDate, LocalDate endDate
+    );
+
+    // Sums in the given base currency (or with no currency recorded), per type
+    @Query("SELECT t.type, SUM(t.amount) FROM Transaction t WHERE t.user = :user " +
+           "AND (t.currency IS NULL OR t.currency = :baseCurrency) GROUP BY t.type")
+    List<Object[]> sumBaseCurrencyByType(User user, String baseCurrency);
+
+    // Sums in other currencies, per type, currency and day, so each group converts at its own date's rate
+    @Query("SELECT t.type, t.currency, t.date, SUM(t.amount) FROM Transaction t WHERE t.user = :user " +
+           "AND t.currency IS NOT NULL AND t.currency <> :baseCurrency GROUP BY t.type, t.currency, t.date")
+    List<Object[]> sumForeignCurrencyByTypeAndDate(User user, String baseCurrency);
+
+    // Ordered for the sort-merge pass of the duplicate report
+    @Query("SELECT new com.finance.tracker.dto.TransactionResponse(t.id, t.title, t.amount, t.date, t.type, t.category, t.currency) " +
+           "FROM Transaction t WHERE t.user = :user AND t.date IS NOT NULL ORDER BY t.amount, t.date, t.id")
+    List<TransactionResponse> findResponsesByUserOrderByAmountAndDate(User user);
+
+    @Query("SELECT t.fingerprint FROM Transaction t WHERE t.user = :user AND t.fingerprint IS NOT NULL")
+    List<Long> findFingerprintsByUser(User user);
+
+    @Query("SELECT t.id FROM Transaction t WHERE t.user = :user AND t.fingerprint = :fingerprint ORDER BY t.id")
+    List<Long> findIdsByUserAndFingerprint(User user, Long fingerprint);
+
+    // Set-based mutations: one statement each, scoped by user, returning the affected row count.
+    // Filter arguments follow findResponsesByUser (null disables a filter, category lower-cased).
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id = :id AND t.user = :user")
+    int deleteByIdAndUser(Long id, User user);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.user = :user AND t.id IN :ids")
+    int deleteByIdsAndUser(List<Long> ids, User user);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.user = :user " +
+           "AND (:type IS NULL OR t.type = :type) " +
+           "AND (:category IS NULL OR LOWER(t.category) = :category) " +
+           "AND (:startDate IS NULL OR t.date >= :startDate) " +
+           "AND (:endDate IS NULL OR t.date <= :endDate)")
+    int deleteByUserAndFilter(User user, TransactionType type, String category, LocalDate startDate, LocalDate endDate);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.user.id = :userId")
+    int deleteAllByUserId(Long userId);
+
+    // Rows without a currency are read in the user's base currency; pins them before that changes
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.currency = :currency WHERE t.user.id = :userId AND t.currency IS NULL")
+    int fillMissingCurrency(Long userId, String currency);
+
+    // Fingerprints cover the category, so they are cleared here and re-hashed by the caller
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.category = :newCategory, t.fingerprint = NULL WHERE t.user = :user AND t.id IN :ids")
+    int recategorizeByIdsAndUser(List<Long> ids, User user, String newCategory);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.category = :newCategory, t.fingerprint = NULL WHERE t.user = :user " +
+           "AND (:type IS NULL OR t.type = :type) " +
+           "AND (:category IS NULL OR LOWER(t.category) = :category) " +
+           "AND (:startDate IS NULL OR t.date >= :startDate) " +
+           "AND (:endDate IS NULL OR t.date <= :endDate)")
+    int recategorizeByUserAndFilter(
+        User user, TransactionType type, String category, LocalDate startDate, LocalDate endDate, String newCategory
+    );
+
+    // Rows feeding the amount sketches: type, lower-cased category, date, amount, currency
+    @Query("SELECT t.type, LOWER(t.category), t.date, t.amount, t.currency FROM Transaction t " +
+           "WHERE t.user.id = :userId AND t.date IS NOT NULL")
+    List<Object[]> findSketchRowsByUserId(Long userId);
+
+    @Query("SELECT t.type, LOWER(t.category), t.date, t.amount, t.currency FROM Transaction t " +
+           "WHERE t.user.id = :userId AND t.type = :type AND COALESCE(LOWER(t.category), '') = :category " +
+           "AND t.date >= :fromDate AND t.date <= :toDate")
+    List<Object[]> findSketchRowsForBucket(Long userId, TransactionType type, String category, LocalDate fromDate, LocalDate toDate);
+
+    @Query("SELECT t.type, LOWER(t.category), t.date, t.amount, t.currency FROM Transaction t " +
+           "WHERE t.user.id = :userId AND (:type IS NULL OR t.type = :type) " +
+           "AND (:category IS NULL OR COALESCE(LOWER(t.category), '') = :category) " +
+           "AND t.date >= :fromDate AND t.date <= :toDate")
+    List<Object[]> findSketchRowsForRange(Long userId, TransactionType type, String category, LocalDate fromDate, LocalDate toDate);
+
+    // Row counts per sketch bucket: type, lower-cased category, year, month, count
+    @Query("SELECT t.type, LOWER(t.category), YEAR(t.date), MONTH(t.date), COUNT(t) FROM Transaction t " +
+           "WHERE t.user.id = :userId AND t.date IS NOT NULL " +
+           "GROUP BY t.type, LOWER(t.category), YEAR(t.date), MONTH(t.date)")
+    List<Object[]> countSketchRowsByMonth(Long userId);
+
+    // Replayed in write order to seed the anomaly detector when a user has no checkpoint
+    @Query("SELECT t.type, LOWER(t.category), t.title, t.amount, t.currency, t.date FROM Transaction t " +
+           "WHERE t.user.id = :userId AND t.id <> :excludeId ORDER BY t.id")
+    List<Object[]> findAnomalyRowsByUserId(Long userId, Long excludeId);
+
+    // Raw titles for rebuilding the anomaly detector's title filter at a larger size
+    @Query("SELECT DISTINCT t.title FROM Transaction t WHERE t.user.id = :userId AND t.title IS NOT NULL")
+    List<String> findTitlesByUserId(Long userId);
+
+    boolean existsByUser(User user);
+
     boolean existsByIdAndUser(Long id, User user);
 
     Optional<Transaction> findByIdAndUser(Long id, User user);
 
     List<Transaction> findAllByUser(User user);
-}
\ No newline at end of file
+}
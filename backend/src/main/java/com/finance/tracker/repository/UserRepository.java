@@ -2,8 +2,32 @@ package com.finance.tracker.repository;
 
 import com.finance.tracker.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = COALESCE(u.dataVersion, 0) + 1 WHERE u.id = :id")
+    int bumpDataVersion(Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.sketchesStale = true WHERE u.id = :id")
+    int markSketchesStale(Long id);
+
+    // Only clears the flag if nothing changed since the caller read dataVersion
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.sketchesStale = false WHERE u.id = :id AND COALESCE(u.dataVersion, 0) = :dataVersion")
+    int clearSketchesStale(Long id, long dataVersion);
+
+    // Bypasses the cascading transactions collection; callers delete transactions set-based first
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteUserById(Long id);
 }
\ No newline at end of file
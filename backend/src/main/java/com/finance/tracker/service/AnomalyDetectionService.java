@@ -0,0 +1,476 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.dto.AnomalyResponse;
+import com.finance.tracker.model.AnomalyBaseline;
+import com.finance.tracker.model.AnomalyReason;
+import com.finance.tracker.model.Transaction;
+import com.finance.tracker.model.TransactionAnomaly;
+import com.finance.tracker.model.TransactionType;
+import com.finance.tracker.model.User;
+import com.finance.tracker.repository.AnomalyBaselineRepository;
+import com.finance.tracker.repository.TransactionAnomalyRepository;
+import com.finance.tracker.repository.TransactionRepository;
+import com.finance.tracker.service.DuplicateDetectionService.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scores created and updated transactions against exponentially weighted statistics of the
+ * user's log amounts per type and category, and against a Bloom filter of titles seen before.
+ * Scoring runs on a single detector thread that owns all in-memory state, so the request path
+ * only enqueues a snapshot of the row. Dirty baselines are checkpointed periodically and on
+ * eviction; a user without a checkpoint is seeded by replaying their transactions once. The title
+ * filter is sized from the titles seen at seeding and rebuilt at twice the size when it fills up.
+ */
+@Service
+public class AnomalyDetectionService {
+
+    private static final int STATE_VERSION = 1;
+    private static final int MIN_TITLE_FILTER_CAPACITY = 512;
+    // Floor for the standard deviation of log amounts, so near-constant payments don't flag small changes
+    private static final double MIN_STD_DEV = 0.1;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionAnomalyRepository anomalyRepository;
+    private final AnomalyBaselineRepository baselineRepository;
+    private final FxRateService fxRateService;
+    private final double alpha;
+    private final double threshold;
+    private final int minSamples;
+    private final ThreadPoolExecutor executor;
+    private final Timer scoreTimer;
+    private final Counter droppedCounter;
+
+    // Only touched from the detector thread
+    private final Map<Long, Baseline> baselines;
+
+    public AnomalyDetectionService(
+        TransactionRepository transactionRepository,
+        TransactionAnomalyRepository anomalyRepository,
+        AnomalyBaselineRepository baselineRepository,
+        FxRateService fxRateService,
+        MeterRegistry meterRegistry,
+        @Value("${transactions.anomaly.alpha:0.05}") double alpha,
+        @Value("${transactions.anomaly.threshold:3.5}") double threshold,
+        @Value("${transactions.anomaly.min-samples:10}") int minSamples,
+        @Value("${transactions.anomaly.queue-capacity:10000}") int queueCapacity,
+        @Value("${transactions.anomaly.max-users:10000}") int maxUsers
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.anomalyRepository = anomalyRepository;
+        this.baselineRepository = baselineRepository;
+        this.fxRateService = fxRateService;
+        this.alpha = alpha;
+        this.threshold = threshold;
+        this.minSamples = minSamples;
+        this.baselines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Baseline> eldest) {
+                if (size() <= maxUsers) {
+                    return false;
+                }
+                if (eldest.getValue().dirty) {
+                    save(eldest.getKey(), eldest.getValue());
+                }
+                return true;
+            }
+        };
+        this.executor = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "anomaly-detector");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.scoreTimer = Timer.builder("transactions.anomaly.score")
+            .description("Time spent scoring a transaction for anomalies")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("transactions.anomaly.dropped")
+            .description("Transactions not scored because the detector queue was full")
+            .register(meterRegistry);
+        Gauge.builder("transactions.anomaly.queue.depth", executor, e -> e.getQueue().size())
+            .description("Transactions waiting to be scored")
+            .register(meterRegistry);
+    }
+
+    /** Scores a newly created transaction and adds it to the user's baseline. */
+    public void score(User user, Transaction transaction) {
+        Observation observation = observe(user, transaction);
+        enqueue(() -> process(observation, true, false));
+    }
+
+    /**
+     * Replaces any earlier flags on an updated transaction with a score for its new values. The
+     * baseline is left as it is, since the transaction was already learned when it was created.
+     */
+    public void rescore(User user, Transaction transaction) {
+        Observation observation = observe(user, transaction);
+        enqueue(() -> process(observation, true, true));
+    }
+
+    /** Adds imported transactions to the user's baseline without flagging them. */
+    public void learn(User user, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Observation> observations = new ArrayList<>(transactions.size());
+        transactions.forEach(t -> observations.add(observe(user, t)));
+        enqueue(() -> {
+            Observation first = observations.get(0);
+            if (baselines.containsKey(first.userId()) || baselineRepository.existsById(first.userId())) {
+                observations.forEach(o -> process(o, false, false));
+            } else {
+                // Seeding from the table already includes these rows
+                baselineFor(first.userId(), first.baseCurrency(), -1L);
+            }
+        });
+    }
+
+    /** Drops the user's in-memory state and checkpoint, e.g. when the account is deleted or its base currency changes. */
+    public void forget(Long userId) {
+        enqueue(() -> {
+            baselines.remove(userId);
+            baselineRepository.deleteById(userId);
+        });
+    }
+
+    /** Drops all state, e.g. after a restore replaced every user. */
+    public void reset() {
+        enqueue(() -> {
+            baselines.clear();
+            baselineRepository.deleteAllInBatch();
+        });
+    }
+
+    /**
+     * Drops queued work and waits for the task in progress to finish, e.g. before a restore
+     * replaces the rows those tasks refer to. Callers must already have stopped new writes.
+     */
+    public void discardPending(Duration timeout) {
+        int discarded = executor.getQueue().size();
+        executor.getQueue().clear();
+        try {
+            executor.submit(() -> {}).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the anomaly detector", e);
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            throw new RuntimeException("Anomaly detector did not go idle: " + e.getMessage(), e);
+        }
+        if (discarded > 0) {
+            System.out.println("AnomalyDetectionService: Discarded " + discarded + " queued tasks");
+        }
+    }
+
+    public List<AnomalyResponse> findAnomalies(User user, int limit) {
+        return anomalyRepository.findResponsesByUserId(user.getId(), Limit.of(Math.max(1, Math.min(limit, 500))));
+    }
+
+    @Scheduled(fixedDelayString = "${transactions.anomaly.checkpoint-interval:PT5M}")
+    public void checkpoint() {
+        enqueue(this::saveDirtyBaselines);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        enqueue(this::saveDirtyBaselines);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private Observation observe(User user, Transaction t) {
+        return new Observation(user.getId(), fxRateService.baseCurrencyOf(user), t.getId(), t.getType(),
+            t.getCategory(), t.getTitle(), t.getAmount(), t.getCurrency(), t.getDate());
+    }
+
+    // Inside a write transaction the task waits for the commit, so it never sees uncommitted rows
+    private void enqueue(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(task);
+                }
+            });
+            return;
+        }
+        submit(task);
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    System.err.println("AnomalyDetectionService: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void process(Observation o, boolean flag, boolean rescore) {
+        long start = System.nanoTime();
+        Baseline baseline = baselineFor(o.userId(), o.baseCurrency(), o.transactionId());
+        if (rescore) {
+            anomalyRepository.deleteByTransactionId(o.transactionId());
+        }
+
+        double x = logAmount(o.amount(), o.currency(), o.date(), o.baseCurrency());
+        Stats stats = baseline.stats(o.type(), o.category());
+        String title = normalizeTitle(o.title());
+        long titleHash = DuplicateDetectionService.hash64(title);
+
+        if (stats.count >= minSamples) {
+            double stdDev = Math.max(Math.sqrt(stats.variance), MIN_STD_DEV);
+            double z = (x - stats.mean) / stdDev;
+            if (flag && z >= threshold) {
+                flag(o, AnomalyReason.UNUSUAL_AMOUNT, z, Math.expm1(stats.mean));
+            }
+            // Outliers are clipped before they are learned so one huge payment doesn't mask the next
+            x = Math.max(stats.mean - threshold * stdDev, Math.min(x, stats.mean + threshold * stdDev));
+        }
+        if (flag) {
+            if (!title.isEmpty() && baseline.titles.size() >= minSamples && !baseline.titles.mightContain(titleHash)) {
+                flag(o, AnomalyReason.NEW_TITLE, 0, null);
+            }
+        }
+
+        if (!rescore) {
+            baseline.learn(stats, x, title, titleHash, alpha);
+            if (baseline.titles.isOverfilled()) {
+                growTitles(o.userId(), baseline, title);
+            }
+        }
+        scoreTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void flag(Observation o, AnomalyReason reason, double score, Double expectedAmount) {
+        TransactionAnomaly anomaly = new TransactionAnomaly();
+        anomaly.setUserId(o.userId());
+        anomaly.setTransactionId(o.transactionId());
+        anomaly.setReason(reason);
+        anomaly.setScore(score);
+        anomaly.setExpectedAmount(expectedAmount);
+        anomaly.setDetectedAt(Instant.now());
+        try {
+            anomalyRepository.save(anomaly);
+            System.out.println("AnomalyDetectionService: Flagged transaction " + o.transactionId() + " (" + reason + ", score " + String.format("%.1f", score) + ")");
+        } catch (DataIntegrityViolationException e) {
+            // The transaction was deleted before it was scored
+        }
+    }
+
+    private Baseline baselineFor(Long userId, String baseCurrency, Long excludeTransactionId) {
+        Baseline baseline = baselines.get(userId);
+        if (baseline != null) {
+            return baseline;
+        }
+        baseline = baselineRepository.findById(userId).map(this::decode).orElse(null);
+        if (baseline == null) {
+            List<Object[]> rows = transactionRepository.findAnomalyRowsByUserId(userId, excludeTransactionId);
+            Set<String> titles = new HashSet<>();
+            rows.forEach(row -> titles.add(normalizeTitle((String) row[2])));
+            baseline = new Baseline(new BloomFilter(titleCapacity(titles.size())));
+            for (Object[] row : rows) {
+                String title = normalizeTitle((String) row[2]);
+                double x = logAmount((Double) row[3], (String) row[4], (LocalDate) row[5], baseCurrency);
+                baseline.learn(baseline.stats((TransactionType) row[0], (String) row[1]), x, title, DuplicateDetectionService.hash64(title), alpha);
+            }
+            System.out.println("AnomalyDetectionService: Seeded baseline for user ID " + userId + " from " + rows.size() + " transactions");
+        }
+        baselines.put(userId, baseline);
+        return baseline;
+    }
+
+    // Bits can't be re-hashed into a bigger filter, so it is rebuilt from the stored titles
+    private void growTitles(Long userId, Baseline baseline, String title) {
+        Set<String> titles = new HashSet<>();
+        transactionRepository.findTitlesByUserId(userId).forEach(t -> titles.add(normalizeTitle(t)));
+        titles.add(title);
+        titles.remove("");
+        BloomFilter filter = new BloomFilter(Math.max(baseline.titles.capacity() * 2, titleCapacity(titles.size())));
+        titles.forEach(t -> filter.add(DuplicateDetectionService.hash64(t)));
+        baseline.titles = filter;
+        baseline.dirty = true;
+        System.out.println("AnomalyDetectionService: Grew title filter for user ID " + userId + " to " + filter.capacity() + " titles");
+    }
+
+    // Room to double before the next rebuild
+    private static int titleCapacity(int titles) {
+        return Math.max(MIN_TITLE_FILTER_CAPACITY, titles * 2);
+    }
+
+    private void saveDirtyBaselines() {
+        int saved = 0;
+        for (Map.Entry<Long, Baseline> entry : baselines.entrySet()) {
+            if (entry.getValue().dirty) {
+                save(entry.getKey(), entry.getValue());
+                saved++;
+            }
+        }
+        if (saved > 0) {
+            System.out.println("AnomalyDetectionService: Checkpointed " + saved + " baselines");
+        }
+    }
+
+    private void save(Long userId, Baseline baseline) {
+        AnomalyBaseline row = new AnomalyBaseline();
+        row.setUserId(userId);
+        row.setState(encode(baseline));
+        row.setUpdatedAt(Instant.now());
+        try {
+            baselineRepository.save(row);
+            baseline.dirty = false;
+        } catch (DataIntegrityViolationException e) {
+            System.err.println("AnomalyDetectionService: Could not checkpoint user ID " + userId + ": " + e.getMessage());
+        }
+    }
+
+    private double logAmount(Double amount, String currency, LocalDate date, String baseCurrency) {
+        double value = amount != null ? amount : 0.0;
+        if (currency != null && date != null) {
+            value = fxRateService.convert(value, currency, baseCurrency, date);
+        }
+        return Math.log1p(Math.max(0, value));
+    }
+
+    // Letters only, so "Uber 1234" and "UBER*5678" count as the same merchant
+    private static String normalizeTitle(String title) {
+        return title == null ? "" : title.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}]+", " ").trim();
+    }
+
+    private static byte[] encode(Baseline baseline) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(STATE_VERSION);
+            out.writeInt(baseline.titles.capacity());
+            out.writeInt(baseline.titles.size());
+            long[] words = baseline.titles.toWords();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            out.writeInt(baseline.stats.size());
+            for (Map.Entry<String, Stats> entry : baseline.stats.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().count);
+                out.writeDouble(entry.getValue().mean);
+                out.writeDouble(entry.getValue().variance);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode anomaly baseline", e);
+        }
+    }
+
+    private Baseline decode(AnomalyBaseline row) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(row.getState()))) {
+            if (in.readUnsignedByte() != STATE_VERSION) {
+                return null;
+            }
+            int capacity = in.readInt();
+            int size = in.readInt();
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            Baseline baseline = new Baseline(new BloomFilter(capacity, size, words));
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                Stats stats = new Stats();
+                String key = in.readUTF();
+                stats.count = in.readLong();
+                stats.mean = in.readDouble();
+                stats.variance = in.readDouble();
+                baseline.stats.put(key, stats);
+            }
+            return baseline;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("AnomalyDetectionService: Ignoring unreadable checkpoint for user ID " + row.getUserId());
+            return null;
+        }
+    }
+
+    private record Observation(
+        Long userId, String baseCurrency, Long transactionId, TransactionType type,
+        String category, String title, Double amount, String currency, LocalDate date
+    ) {}
+
+    private static final class Baseline {
+        private BloomFilter titles;
+        private final Map<String, Stats> stats = new HashMap<>();
+        private boolean dirty;
+
+        Baseline(BloomFilter titles) {
+            this.titles = titles;
+        }
+
+        Stats stats(TransactionType type, String category) {
+            String key = (type != null ? type.name() : "") + ":" + (category != null ? category.toLowerCase(Locale.ROOT) : "");
+            return stats.computeIfAbsent(key, k -> new Stats());
+        }
+
+        void learn(Stats stats, double x, String title, long titleHash, double alpha) {
+            stats.add(x, alpha);
+            if (!title.isEmpty() && !titles.mightContain(titleHash)) {
+                titles.add(titleHash);
+            }
+            dirty = true;
+        }
+    }
+
+    // Exponentially weighted mean and variance; plain running averages until 1/count drops below alpha
+    private static final class Stats {
+        private long count;
+        private double mean;
+        private double variance;
+
+        void add(double x, double alpha) {
+            count++;
+            double weight = Math.max(alpha, 1.0 / count);
+            double diff = x - mean;
+            double increment = weight * diff;
+            mean += increment;
+            variance = (1 - weight) * (variance + diff * increment);
+        }
+    }
+}
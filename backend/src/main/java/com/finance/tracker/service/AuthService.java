@@ -6,9 +6,9 @@ import com.finance.tracker.dto.AuthResponse;
 import com.finance.tracker.model.User;
 import com.finance.tracker.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PostConstruct;
 import java.util.Optional;
 
 @Service
@@ -16,9 +16,11 @@ import java.util.Optional;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginRateLimiter loginRateLimiter;
 
-    @PostConstruct
+    // Runs once the application is serving requests so the count() query and BCrypt hash stay off the startup path
+    @EventListener(ApplicationReadyEvent.class)
     public void init() {
         if (userRepository.count() == 0) {
             User defaultUser = new User();
@@ -28,13 +30,14 @@ public class AuthService {
             defaultUser.setPhone("1234567890");
             defaultUser.setPosition("Employee");
             defaultUser.setAddress("Default Address");
-            defaultUser.setPassword(passwordEncoder.encode("password"));
+            defaultUser.setPassword(passwordHashingService.encode("password"));
             userRepository.save(defaultUser);
             System.out.println("Default user 'default@example.com' created with password 'password'.");
         }
     }
 
-    public AuthResponse register(RegisterRequest request) {
+    public AuthResponse register(RegisterRequest request, String clientIp) {
+        loginRateLimiter.acquire(clientIp, null);
         if (userRepository.findByEmail(request.getEmail()).isPresent()) {
             throw new RuntimeException("User with this email already exists");
         }
@@ -50,18 +53,25 @@ public class AuthService {
         newUser.setPhone(request.getPhone());
         newUser.setPosition(request.getPosition());
         newUser.setAddress(request.getAddress());
-        newUser.setPassword(passwordEncoder.encode(request.getPassword()));
+        newUser.setPassword(passwordHashingService.encode(request.getPassword()));
 
         userRepository.save(newUser);
 
         return new AuthResponse("Registration successful. Please log in.", null, null, null, null); 
     }
 
-    public AuthResponse login(LoginRequest request) {
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public AuthResponse login(LoginRequest request, String clientIp) {
+        loginRateLimiter.acquire(clientIp, request.getEmail());
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        Optional<User> found = userRepository.findByEmail(request.getEmail());
+        if (found.isEmpty()) {
+            loginRateLimiter.recordFailure(clientIp, request.getEmail());
+            throw new RuntimeException("User not found");
+        }
+        User user = found.get();
+
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
+            loginRateLimiter.recordFailure(clientIp, request.getEmail());
             throw new RuntimeException("Invalid password");
         }
 
@@ -70,7 +80,8 @@ public class AuthService {
         return new AuthResponse("Login successful", token, user.getId(), user.getFirstName(), user.getLastName()); 
     }
         
-    public AuthResponse forgotPassword(String email, String newPassword, String confirmPassword) {
+    public AuthResponse forgotPassword(String email, String newPassword, String confirmPassword, String clientIp) {
+        loginRateLimiter.acquire(clientIp, email);
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User with this email not found"));
 
@@ -78,7 +89,7 @@ public class AuthService {
             throw new RuntimeException("New passwords do not match");
         }
 
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         userRepository.save(user);
 
         return new AuthResponse("Password reset successful. Please log in with your new password.", null, null, null, null);
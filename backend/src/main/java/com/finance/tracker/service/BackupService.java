@@ -0,0 +1,614 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.dto.BackupResult;
+import com.finance.tracker.model.Transaction;
+import com.finance.tracker.model.TransactionType;
+import com.finance.tracker.model.User;
+import com.finance.tracker.repository.UserRepository;
+import com.finance.tracker.service.SnapshotCodec.Segment;
+import com.finance.tracker.service.SnapshotCodec.SegmentReader;
+import com.finance.tracker.service.SnapshotCodec.SegmentWriter;
+import com.finance.tracker.service.SnapshotCodec.Trailer;
+import com.finance.tracker.service.SnapshotCodec.TransactionRow;
+import com.finance.tracker.service.SnapshotCodec.UserRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes and restores {@link SnapshotCodec} snapshots with plain JDBC. Backups stream each user's
+ * transactions through a forward-only cursor on a worker pool, one segment per user, and the
+ * segments are written to the file in user order. Restores decode every segment and check the
+ * checksums and trailer counts before touching the database. They then close the {@link WriteGate},
+ * load segments in parallel with batched inserts into unindexed staging tables, and swap the
+ * staged rows in with one transaction, so a failure at any point leaves the live data untouched.
+ */
+@Service
+public class BackupService {
+
+    private static final String USER_COLUMNS = "id, first_name, last_name, email, phone, position, address, base_currency, password";
+    private static final String TRANSACTION_COLUMNS = "id, title, amount, date, type, category, currency";
+    private static final String STAGED_USERS = "restore_app_user";
+    private static final String STAGED_TRANSACTIONS = "restore_transaction";
+    private static final Duration WRITE_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    private static final String SNAPSHOT_SUFFIX = ".ftsnap";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final RowMapper<UserRow> USER_ROW_MAPPER = (rs, rowNum) -> new UserRow(
+        rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"), rs.getString("email"),
+        rs.getString("phone"), rs.getString("position"), rs.getString("address"),
+        rs.getString("base_currency"), rs.getString("password"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final UserRepository userRepository;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final TransactionListCache transactionListCache;
+    private final SpendingDistributionService spendingDistributionService;
+    private final AnomalyDetectionService anomalyDetectionService;
+    private final FxRateService fxRateService;
+    private final WriteGate writeGate;
+    private final Path directory;
+    private final int threads;
+    private final int batchSize;
+    private final Set<String> adminEmails;
+    private final byte[] restoreToken;
+
+    public BackupService(
+        DataSource dataSource,
+        PlatformTransactionManager transactionManager,
+        UserRepository userRepository,
+        DuplicateDetectionService duplicateDetectionService,
+        TransactionListCache transactionListCache,
+        SpendingDistributionService spendingDistributionService,
+        AnomalyDetectionService anomalyDetectionService,
+        FxRateService fxRateService,
+        WriteGate writeGate,
+        @Value("${backup.directory:./backups}") String directory,
+        @Value("${backup.threads:0}") int threads,
+        @Value("${backup.batch-size:1000}") int batchSize,
+        @Value("${backup.admin-emails:}") String adminEmails,
+        @Value("${backup.restore-token:}") String restoreToken
+    ) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Postgres only streams with a cursor inside a transaction and with a fetch size set
+        this.jdbcTemplate.setFetchSize(batchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.userRepository = userRepository;
+        this.duplicateDetectionService = duplicateDetectionService;
+        this.transactionListCache = transactionListCache;
+        this.spendingDistributionService = spendingDistributionService;
+        this.anomalyDetectionService = anomalyDetectionService;
+        this.fxRateService = fxRateService;
+        this.writeGate = writeGate;
+        this.directory = Path.of(directory);
+        // Each worker holds a pooled connection, so stay well under the pool size
+        this.threads = threads > 0 ? threads : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        this.batchSize = batchSize;
+        this.adminEmails = Arrays.stream(adminEmails.split(","))
+            .map(email -> email.trim().toLowerCase(Locale.ROOT))
+            .filter(email -> !email.isEmpty())
+            .collect(Collectors.toSet());
+        this.restoreToken = restoreToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public BackupResult createBackup() {
+        requireAdmin();
+        long start = System.nanoTime();
+        String name = "finance-" + LocalDateTime.now().format(FILE_TIMESTAMP) + SNAPSHOT_SUFFIX;
+        Path target = directory.resolve(name);
+        Path temp = directory.resolve(name + ".tmp");
+
+        List<UserRow> users = jdbcTemplate.query("SELECT " + USER_COLUMNS + " FROM app_user ORDER BY id", USER_ROW_MAPPER);
+        ExecutorService pool = newPool("backup");
+        long transactions = 0;
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                SnapshotCodec.writeHeader(out);
+                // Bounded window of in-flight segments, written in submission order
+                Deque<Future<Segment>> inFlight = new ArrayDeque<>();
+                for (UserRow user : users) {
+                    inFlight.add(pool.submit(() -> encodeSegment(user)));
+                    if (inFlight.size() >= threads * 2) {
+                        transactions += writeSegment(out, await(inFlight.poll()));
+                    }
+                }
+                while (!inFlight.isEmpty()) {
+                    transactions += writeSegment(out, await(inFlight.poll()));
+                }
+                SnapshotCodec.writeTrailer(out, users.size(), transactions);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return result(name, users.size(), transactions, Files.size(target), start, "Backed up");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write backup: " + e.getMessage(), e);
+        } finally {
+            pool.shutdownNow();
+            deleteQuietly(temp);
+        }
+    }
+
+    public List<String> listBackups() {
+        requireAdmin();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(SNAPSHOT_SUFFIX))
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list backups: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replaces every user and transaction with the contents of the named snapshot. Besides an
+     * admin account this needs the configured restore token, since the auth token alone is not
+     * signed; without one configured, restores are disabled.
+     */
+    public BackupResult restoreBackup(String name, String token) {
+        requireAdmin();
+        requireRestoreToken(token);
+        long start = System.nanoTime();
+        Path file = resolveSnapshot(name);
+        Trailer trailer = verify(file);
+
+        writeGate.close(WRITE_DRAIN_TIMEOUT);
+        boolean swapped = false;
+        try {
+            createStagingTables();
+            long[] staged = stage(file);
+            if (staged[0] != trailer.users() || staged[1] != trailer.transactions()) {
+                throw new RuntimeException("Staged " + staged[0] + " users and " + staged[1]
+                    + " transactions but the snapshot lists " + trailer.users() + " and " + trailer.transactions());
+            }
+
+            // Queued scores refer to rows about to be replaced, and their ids may be reused after the swap
+            anomalyDetectionService.discardPending(WRITE_DRAIN_TIMEOUT);
+            writeTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM amount_sketch");
+                jdbcTemplate.update("DELETE FROM transaction");
+                jdbcTemplate.update("DELETE FROM app_user");
+                jdbcTemplate.update("INSERT INTO app_user SELECT * FROM " + STAGED_USERS);
+                // Staged rows were fingerprinted with the current layout
+                jdbcTemplate.update("UPDATE app_user SET fingerprint_version = ?", DuplicateDetectionService.FINGERPRINT_VERSION);
+                jdbcTemplate.update("INSERT INTO transaction SELECT * FROM " + STAGED_TRANSACTIONS);
+            });
+            swapped = true;
+            resetIdentity("app_user");
+            resetIdentity("transaction");
+        } finally {
+            dropStagingTables();
+            if (swapped) {
+                transactionListCache.invalidateAll();
+                duplicateDetectionService.invalidateAll();
+                anomalyDetectionService.reset();
+            }
+            writeGate.open();
+        }
+        return result(name, trailer.users(), trailer.transactions(), sizeOf(file), start, "Restored");
+    }
+
+    /** Snapshot of the current user's transactions, for moving them to another instance. */
+    public byte[] exportCurrentUser() {
+        User user = getCurrentAuthenticatedUser();
+        UserRow row = jdbcTemplate.queryForObject("SELECT " + USER_COLUMNS + " FROM app_user WHERE id = ?", USER_ROW_MAPPER, user.getId());
+        // The password hash stays on this instance
+        UserRow withoutPassword = new UserRow(row.id(), row.firstName(), row.lastName(), row.email(), row.phone(),
+            row.position(), row.address(), row.baseCurrency(), null);
+        Segment segment = encodeSegment(withoutPassword);
+
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(segment.payload().length + 32);
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            SnapshotCodec.writeHeader(out);
+            SnapshotCodec.writeSegment(out, segment);
+            SnapshotCodec.writeTrailer(out, 1, segment.transactions());
+            out.flush();
+            System.out.println("BackupService: Exported " + segment.transactions() + " transactions for user ID " + user.getId());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to export transactions: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends the transactions of a single-user snapshot to the current user with new ids. Rows
+     * matching an existing transaction, or an earlier row of the same import, are skipped, so
+     * importing the same export twice adds nothing. Currencies are normalized, and a row in a
+     * currency without FX rates fails the whole import before anything is written.
+     */
+    public BackupResult importCurrentUser(byte[] snapshot) {
+        User user = getCurrentAuthenticatedUser();
+        long start = System.nanoTime();
+        Segment segment;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            SnapshotCodec.readHeader(in);
+            segment = SnapshotCodec.readSegment(in);
+            if (segment == null || SnapshotCodec.readSegment(in) != null) {
+                throw new RuntimeException("Import expects a snapshot with exactly one user");
+            }
+            SnapshotCodec.readTrailer(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Corrupt snapshot: " + e.getMessage(), e);
+        }
+
+        String sql = "INSERT INTO transaction (title, amount, date, type, category, currency, fingerprint, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Transaction> imported = new ArrayList<>();
+        long[] skipped = new long[1];
+        writeTransaction.executeWithoutResult(status -> {
+            try (SegmentReader reader = new SegmentReader(segment)) {
+                // Rows without a currency were in the source owner's base currency
+                String defaultCurrency = importedCurrency(reader.readUser().baseCurrency(), fxRateService.baseCurrencyOf(user));
+                Set<Long> seen = new HashSet<>();
+                List<TransactionRow> batch = new ArrayList<>(batchSize);
+                for (TransactionRow read = reader.nextTransaction(); read != null; read = reader.nextTransaction()) {
+                    TransactionRow row = new TransactionRow(read.id(), read.title(), read.amount(), read.date(),
+                        read.type(), read.category(), importedCurrency(read.currency(), defaultCurrency));
+                    Long fingerprint = fingerprintOf(row, defaultCurrency);
+                    if (fingerprint != null
+                            && (!seen.add(fingerprint) || duplicateDetectionService.findDuplicate(user, fingerprint) != null)) {
+                        skipped[0]++;
+                        continue;
+                    }
+                    batch.add(row);
+                    imported.add(toTransaction(row, defaultCurrency));
+                    if (batch.size() == batchSize) {
+                        insertBatch(sql, batch, user.getId(), false, defaultCurrency);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    insertBatch(sql, batch, user.getId(), false, defaultCurrency);
+                }
+            }
+            transactionListCache.markChanged(user);
+        });
+        duplicateDetectionService.invalidate(user);
+        spendingDistributionService.invalidate(user);
+        anomalyDetectionService.learn(user, imported);
+        BackupResult result = result("import", 1, imported.size(), snapshot.length, start, "Imported");
+        result.setSkipped(skipped[0]);
+        System.out.println("BackupService: Skipped " + skipped[0] + " duplicate transactions for user ID " + user.getId());
+        return result;
+    }
+
+    // Unknown codes would break FX conversion for the whole account, so they fail the import
+    private String importedCurrency(String currency, String fallback) {
+        try {
+            return fxRateService.normalize(currency, fallback);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Import rejected: " + e.getMessage(), e);
+        }
+    }
+
+    private Segment encodeSegment(UserRow user) {
+        return readOnlyTransaction.execute(status -> {
+            SegmentWriter writer = new SegmentWriter();
+            writer.writeUser(user);
+            jdbcTemplate.query(
+                "SELECT " + TRANSACTION_COLUMNS + " FROM transaction WHERE user_id = ? ORDER BY id",
+                rs -> {
+                    writer.writeTransaction(toTransactionRow(rs));
+                },
+                user.id());
+            return writer.finish();
+        });
+    }
+
+    // Decodes the snapshot again, loading each segment into the staging tables in its own transaction
+    private long[] stage(Path file) {
+        ExecutorService pool = newPool("restore");
+        long users = 0;
+        long transactions = 0;
+        try (DataInputStream in = open(file)) {
+            SnapshotCodec.readHeader(in);
+            Deque<Future<Long>> inFlight = new ArrayDeque<>();
+            for (Segment segment = SnapshotCodec.readSegment(in); segment != null; segment = SnapshotCodec.readSegment(in)) {
+                Segment next = segment;
+                inFlight.add(pool.submit(() -> stageSegment(next)));
+                users++;
+                if (inFlight.size() >= threads * 2) {
+                    transactions += await(inFlight.poll());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                transactions += await(inFlight.poll());
+            }
+            return new long[] {users, transactions};
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read backup: " + e.getMessage(), e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long stageSegment(Segment segment) {
+        return writeTransaction.execute(status -> {
+            try (SegmentReader reader = new SegmentReader(segment)) {
+                UserRow user = reader.readUser();
+                jdbcTemplate.update("INSERT INTO " + STAGED_USERS + " (" + USER_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    user.id(), user.firstName(), user.lastName(), user.email(), user.phone(),
+                    user.position(), user.address(), user.baseCurrency(), user.password());
+                return insertTransactions(reader, user.id());
+            }
+        });
+    }
+
+    // Same columns as the live tables, without their constraints and indexes
+    private void createStagingTables() {
+        dropStagingTables();
+        jdbcTemplate.execute("CREATE TABLE " + STAGED_USERS + " AS SELECT * FROM app_user WHERE 1 = 0");
+        jdbcTemplate.execute("CREATE TABLE " + STAGED_TRANSACTIONS + " AS SELECT * FROM transaction WHERE 1 = 0");
+    }
+
+    private void dropStagingTables() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGED_TRANSACTIONS);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGED_USERS);
+    }
+
+    private long insertTransactions(SegmentReader reader, long userId) {
+        String sql = "INSERT INTO " + STAGED_TRANSACTIONS + " (" + TRANSACTION_COLUMNS + ", fingerprint, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<TransactionRow> batch = new ArrayList<>(batchSize);
+        long inserted = 0;
+        for (TransactionRow row = reader.nextTransaction(); row != null; row = reader.nextTransaction()) {
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                inserted += insertBatch(sql, batch, userId, true, null);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            inserted += insertBatch(sql, batch, userId, true, null);
+        }
+        return inserted;
+    }
+
+    private int insertBatch(String sql, List<TransactionRow> rows, long userId, boolean keepIds, String defaultCurrency) {
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            int i = 1;
+            if (keepIds) {
+                ps.setLong(i++, row.id());
+            }
+            ps.setString(i++, row.title());
+            ps.setObject(i++, row.amount(), Types.DOUBLE);
+            ps.setObject(i++, row.date() != null ? Date.valueOf(row.date()) : null, Types.DATE);
+            ps.setString(i++, row.type() != null ? row.type().name() : null);
+            ps.setString(i++, row.category());
+            ps.setString(i++, row.currency() != null ? row.currency() : defaultCurrency);
+            ps.setObject(i++, fingerprintOf(row, defaultCurrency), Types.BIGINT);
+            ps.setLong(i, userId);
+        });
+        return rows.size();
+    }
+
+    // Fingerprints are derived data, so they are recomputed on load rather than stored
+    private Long fingerprintOf(TransactionRow row, String defaultCurrency) {
+        if (row.amount() == null) {
+            return null;
+        }
+        return duplicateDetectionService.fingerprint(toTransaction(row, defaultCurrency));
+    }
+
+    private static Transaction toTransaction(TransactionRow row, String defaultCurrency) {
+        Transaction transaction = new Transaction();
+        transaction.setTitle(row.title());
+        transaction.setAmount(row.amount());
+        transaction.setDate(row.date());
+        transaction.setType(row.type());
+        transaction.setCategory(row.category());
+        transaction.setCurrency(row.currency() != null ? row.currency() : defaultCurrency);
+        return transaction;
+    }
+
+    private static TransactionRow toTransactionRow(ResultSet rs) throws SQLException {
+        double amount = rs.getDouble("amount");
+        boolean hasAmount = !rs.wasNull();
+        Date date = rs.getDate("date");
+        String type = rs.getString("type");
+        return new TransactionRow(
+            rs.getLong("id"),
+            rs.getString("title"),
+            hasAmount ? amount : null,
+            date != null ? date.toLocalDate() : null,
+            type != null ? TransactionType.valueOf(type) : null,
+            rs.getString("category"),
+            rs.getString("currency"));
+    }
+
+    // Decodes every segment on the worker pool so the trailer's transaction count is checked too
+    private Trailer verify(Path file) {
+        ExecutorService pool = newPool("verify");
+        long segments = 0;
+        long transactions = 0;
+        try (DataInputStream in = open(file)) {
+            SnapshotCodec.readHeader(in);
+            Deque<Future<Long>> inFlight = new ArrayDeque<>();
+            for (Segment segment = SnapshotCodec.readSegment(in); segment != null; segment = SnapshotCodec.readSegment(in)) {
+                Segment next = segment;
+                inFlight.add(pool.submit(() -> countTransactions(next)));
+                segments++;
+                if (inFlight.size() >= threads * 2) {
+                    transactions += await(inFlight.poll());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                transactions += await(inFlight.poll());
+            }
+            Trailer trailer = SnapshotCodec.readTrailer(in);
+            if (trailer.users() != segments || trailer.transactions() != transactions) {
+                throw new RuntimeException("Corrupt snapshot: " + segments + " users and " + transactions
+                    + " transactions but the trailer lists " + trailer.users() + " and " + trailer.transactions());
+            }
+            return trailer;
+        } catch (IOException e) {
+            throw new RuntimeException("Corrupt snapshot: " + e.getMessage(), e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long countTransactions(Segment segment) {
+        try (SegmentReader reader = new SegmentReader(segment)) {
+            reader.readUser();
+            long count = 0;
+            while (reader.nextTransaction() != null) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private void resetIdentity(String table) {
+        long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if ("H2".equals(database)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (max + 1));
+        } else if ("PostgreSQL".equals(database)) {
+            jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " + Math.max(max, 1) + ", " + (max > 0) + ")", Long.class);
+        } else {
+            System.err.println("BackupService: Cannot reset the id sequence of " + table + " on " + database);
+        }
+    }
+
+    private Path resolveSnapshot(String name) {
+        if (name == null || !name.matches("[A-Za-z0-9._-]+") || !name.endsWith(SNAPSHOT_SUFFIX)) {
+            throw new RuntimeException("Invalid backup name: " + name);
+        }
+        Path file = directory.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            throw new RuntimeException("Backup not found: " + name);
+        }
+        return file;
+    }
+
+    private void requireAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !adminEmails.contains(authentication.getName().toLowerCase(Locale.ROOT))) {
+            throw new RuntimeException("Backups can only be managed by an administrator");
+        }
+    }
+
+    private void requireRestoreToken(String token) {
+        if (restoreToken.length == 0) {
+            throw new RuntimeException("Restores are disabled; set BACKUP_RESTORE_TOKEN to enable them");
+        }
+        // Constant-time comparison so the token can't be guessed byte by byte
+        if (token == null || !MessageDigest.isEqual(restoreToken, token.getBytes(StandardCharsets.UTF_8))) {
+            throw new RuntimeException("Invalid restore token");
+        }
+    }
+
+    private User getCurrentAuthenticatedUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new RuntimeException("User not authenticated.");
+        }
+        String userEmail = authentication.getName();
+        return userRepository.findByEmail(userEmail)
+            .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userEmail));
+    }
+
+    private ExecutorService newPool(String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static long writeSegment(DataOutputStream out, Segment segment) throws IOException {
+        SnapshotCodec.writeSegment(out, segment);
+        return segment.transactions();
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a backup segment", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("BackupService: Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static BackupResult result(String file, long users, long transactions, long bytes, long startNanos, String action) {
+        long nanos = Math.max(1, System.nanoTime() - startNanos);
+        double seconds = nanos / 1e9;
+        BackupResult result = new BackupResult(file, users, transactions, bytes, nanos / 1_000_000,
+            transactions / seconds, bytes / seconds / (1024 * 1024), 0);
+        System.out.printf("BackupService: %s %d users, %d transactions (%d bytes) in %d ms: %.0f rows/s, %.1f MB/s%n",
+            action, users, transactions, bytes, result.getMillis(), result.getTransactionsPerSecond(), result.getMegabytesPerSecond());
+        return result;
+    }
+}
@@ -0,0 +1,304 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.dto.TransactionResponse;
+import com.finance.tracker.model.Transaction;
+import com.finance.tracker.model.User;
+import com.finance.tracker.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Spots re-entered transactions. Each row stores a 64-bit fingerprint of its normalized
+ * (date, amount, type, currency, title, category). A per-user Bloom filter answers "definitely
+ * new" in O(1), and only filter hits go to the indexed fingerprint column for confirmation.
+ * Rows hashed under an older {@link #FINGERPRINT_VERSION} are re-hashed when their owner is next seen.
+ */
+@Service
+public class DuplicateDetectionService {
+
+    // Bump whenever the fingerprint tuple changes; version 2 added type and currency
+    static final int FINGERPRINT_VERSION = 2;
+
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int rehashBatchSize;
+    private final Map<Long, BloomFilter> filters;
+
+    public DuplicateDetectionService(
+        TransactionRepository transactionRepository,
+        JdbcTemplate jdbcTemplate,
+        @Value("${duplicates.bloom.max-users:1000}") int maxUsers,
+        @Value("${duplicates.rehash.batch-size:1000}") int rehashBatchSize
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rehashBatchSize = rehashBatchSize;
+        this.filters = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BloomFilter> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    public long fingerprint(Transaction transaction) {
+        return fingerprint(transaction.getDate(), transaction.getAmount(),
+            transaction.getType() != null ? transaction.getType().name() : null,
+            transaction.getCurrency(), transaction.getTitle(), transaction.getCategory());
+    }
+
+    private static long fingerprint(LocalDate date, double amount, String type, String currency, String title, String category) {
+        String normalized = (date != null ? date.toEpochDay() : 0) + "|"
+            + Math.round(amount * 100) + "|"
+            + (type != null ? type : "") + "|"
+            + normalizeText(currency) + "|"
+            + normalizeText(title) + "|"
+            + normalizeText(category);
+        return hash64(normalized);
+    }
+
+    private record Rehash(long id, long fingerprint) {}
+
+    /**
+     * Hashes the user's rows that have no fingerprint (written before fingerprints existed, or
+     * cleared by a set-based update). Pages through them by id with plain JDBC and writes each
+     * page back with one batched UPDATE, so no entities are loaded. Returns the rows updated.
+     */
+    public int fillMissingFingerprints(User user) {
+        int updated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Rehash> page = jdbcTemplate.query(
+                "SELECT id, date, amount, type, currency, title, category FROM transaction " +
+                "WHERE user_id = ? AND fingerprint IS NULL AND amount IS NOT NULL AND id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> {
+                    Date date = rs.getDate("date");
+                    return new Rehash(rs.getLong("id"), fingerprint(date != null ? date.toLocalDate() : null,
+                        rs.getDouble("amount"), rs.getString("type"), rs.getString("currency"),
+                        rs.getString("title"), rs.getString("category")));
+                },
+                user.getId(), lastId, rehashBatchSize);
+            if (page.isEmpty()) {
+                return updated;
+            }
+            jdbcTemplate.batchUpdate("UPDATE transaction SET fingerprint = ? WHERE id = ?", page, page.size(), (ps, row) -> {
+                ps.setLong(1, row.fingerprint());
+                ps.setLong(2, row.id());
+            });
+            updated += page.size();
+            lastId = page.get(page.size() - 1).id();
+        }
+    }
+
+    /** Returns the id of an earlier transaction with this fingerprint, or null if there is none. */
+    public Long findDuplicate(User user, long fingerprint) {
+        if (!filterFor(user).mightContain(fingerprint)) {
+            return null;
+        }
+        List<Long> ids = transactionRepository.findIdsByUserAndFingerprint(user, fingerprint);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    public void record(User user, long fingerprint) {
+        BloomFilter filter = filterFor(user);
+        filter.add(fingerprint);
+        if (filter.isOverfilled()) {
+            // Rebuilt at the right size on next use
+            filters.remove(user.getId());
+        }
+    }
+
+    /** Drops the user's filter so it is rebuilt on next use. */
+    public void invalidate(User user) {
+        filters.remove(user.getId());
+    }
+
+    public void invalidateAll() {
+        filters.clear();
+    }
+
+    /**
+     * Groups transactions with the same type, currency and amount whose dates lie within
+     * {@code windowDays} of each other and whose normalized titles match. Rows come back from
+     * the database sorted by amount and date, so one forward sweep finds every group.
+     */
+    public List<List<TransactionResponse>> findNearDuplicates(User user, int windowDays) {
+        List<TransactionResponse> rows = transactionRepository.findResponsesByUserOrderByAmountAndDate(user);
+        List<List<TransactionResponse>> groups = new ArrayList<>();
+        boolean[] grouped = new boolean[rows.size()];
+
+        for (int i = 0; i < rows.size(); i++) {
+            if (grouped[i]) {
+                continue;
+            }
+            TransactionResponse first = rows.get(i);
+            long cents = Math.round(first.getAmount() * 100);
+            String title = normalizeText(first.getTitle());
+            List<TransactionResponse> group = null;
+
+            for (int j = i + 1; j < rows.size(); j++) {
+                TransactionResponse candidate = rows.get(j);
+                if (Math.round(candidate.getAmount() * 100) != cents
+                        || ChronoUnit.DAYS.between(first.getDate(), candidate.getDate()) > windowDays) {
+                    break;
+                }
+                if (!grouped[j]
+                        && candidate.getType() == first.getType()
+                        && Objects.equals(candidate.getCurrency(), first.getCurrency())
+                        && normalizeText(candidate.getTitle()).equals(title)) {
+                    if (group == null) {
+                        group = new ArrayList<>();
+                        group.add(first);
+                    }
+                    group.add(candidate);
+                    grouped[j] = true;
+                }
+            }
+            if (group != null) {
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
+    private BloomFilter filterFor(User user) {
+        BloomFilter filter = filters.get(user.getId());
+        if (filter == null) {
+            filter = loadFilter(user);
+            filters.put(user.getId(), filter);
+        }
+        return filter;
+    }
+
+    private BloomFilter loadFilter(User user) {
+        // Read fresh rather than from the entity, which may predate an earlier upgrade
+        Integer version = jdbcTemplate.queryForObject("SELECT fingerprint_version FROM app_user WHERE id = ?", Integer.class, user.getId());
+        if (version == null || version < FINGERPRINT_VERSION) {
+            int cleared = jdbcTemplate.update("UPDATE transaction SET fingerprint = NULL WHERE user_id = ? AND fingerprint IS NOT NULL", user.getId());
+            if (cleared > 0) {
+                System.out.println("DuplicateDetectionService: Cleared " + cleared + " fingerprints from version " + version + " for user ID " + user.getId());
+            }
+        }
+
+        // Rows written before fingerprints existed, or cleared above, are backfilled the first time their owner is seen
+        int backfilled = fillMissingFingerprints(user);
+        if (backfilled > 0) {
+            System.out.println("DuplicateDetectionService: Backfilled " + backfilled + " fingerprints for user ID " + user.getId());
+        }
+        if (version == null || version < FINGERPRINT_VERSION) {
+            jdbcTemplate.update("UPDATE app_user SET fingerprint_version = ? WHERE id = ?", FINGERPRINT_VERSION, user.getId());
+        }
+
+        List<Long> fingerprints = transactionRepository.findFingerprintsByUser(user);
+        BloomFilter filter = new BloomFilter(Math.max(1024, fingerprints.size() * 2));
+        fingerprints.forEach(filter::add);
+        return filter;
+    }
+
+    private static String normalizeText(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with the MurmurHash3 fmix64 avalanche step
+    static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /** Fixed-size Bloom filter over fingerprints, about 1% false positives at capacity. */
+    static final class BloomFilter {
+        private static final int BITS_PER_ENTRY = 10;
+        private static final int HASHES = 7;
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int capacity;
+        private final AtomicInteger size = new AtomicInteger();
+
+        BloomFilter(int capacity) {
+            this.capacity = capacity;
+            this.bitCount = (long) capacity * BITS_PER_ENTRY;
+            this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        }
+
+        /** Restores a filter saved with {@link #toWords()}. */
+        BloomFilter(int capacity, int size, long[] words) {
+            this.capacity = capacity;
+            this.bitCount = (long) capacity * BITS_PER_ENTRY;
+            if (words.length != (int) ((bitCount + 63) / 64)) {
+                throw new IllegalArgumentException("Expected " + ((bitCount + 63) / 64) + " words for capacity " + capacity);
+            }
+            this.words = new AtomicLongArray(words);
+            this.size.set(size);
+        }
+
+        void add(long fingerprint) {
+            int h1 = (int) fingerprint;
+            int h2 = (int) (fingerprint >>> 32);
+            for (int i = 1; i <= HASHES; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+            size.incrementAndGet();
+        }
+
+        boolean mightContain(long fingerprint) {
+            int h1 = (int) fingerprint;
+            int h2 = (int) (fingerprint >>> 32);
+            for (int i = 1; i <= HASHES; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isOverfilled() {
+            return size.get() > capacity;
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        long[] toWords() {
+            long[] copy = new long[words.length()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = words.get(i);
+            }
+            return copy;
+        }
+    }
+}
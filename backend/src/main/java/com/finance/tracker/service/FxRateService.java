@@ -0,0 +1,191 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.model.User;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Daily FX rates loaded from a CSV ({@code date,currency,units_per_usd}) into one
+ * {@code double[]} per currency, indexed by days since the first date in the file. Days without
+ * a quote carry the previous rate forward, so a lookup is a single array read. Dates before a
+ * currency's first quote use that first quote, and dates after the file use its last day.
+ * The file at {@code fx.rates.location} is re-read when it changes, so a daily export appended
+ * by a cron job is picked up without a restart.
+ */
+@Service
+public class FxRateService {
+
+    private final Resource ratesLocation;
+    private final String defaultCurrency;
+
+    // Swapped as a whole on reload so readers never mix two files
+    private volatile RateTables tables = new RateTables(0, Map.of());
+    private long loadedModified = -1;
+
+    private record RateTables(long firstEpochDay, Map<String, double[]> unitsPerUsd) {}
+
+    public FxRateService(
+        @Value("${fx.rates.location:classpath:fx/rates.csv}") Resource ratesLocation,
+        @Value("${fx.default-currency:INR}") String defaultCurrency
+    ) {
+        this.ratesLocation = ratesLocation;
+        this.defaultCurrency = defaultCurrency.toUpperCase(Locale.ROOT);
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        long modified = lastModified();
+        Map<String, TreeMap<Long, Double>> quotes = new HashMap<>();
+        long minDay = Long.MAX_VALUE;
+        long maxDay = Long.MIN_VALUE;
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(ratesLocation.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("date")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                long day = LocalDate.parse(fields[0].trim()).toEpochDay();
+                String currency = fields[1].trim().toUpperCase(Locale.ROOT);
+                quotes.computeIfAbsent(currency, c -> new TreeMap<>()).put(day, Double.parseDouble(fields[2].trim()));
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+            }
+        }
+        if (quotes.isEmpty()) {
+            throw new IllegalStateException("No FX rates found in " + ratesLocation);
+        }
+
+        int days = (int) (maxDay - minDay + 1);
+        Map<String, double[]> tables = new HashMap<>();
+        for (Map.Entry<String, TreeMap<Long, Double>> entry : quotes.entrySet()) {
+            TreeMap<Long, Double> series = entry.getValue();
+            double[] rates = new double[days];
+            double current = series.firstEntry().getValue();
+            for (int i = 0; i < days; i++) {
+                Double quote = series.get(minDay + i);
+                if (quote != null) {
+                    current = quote;
+                }
+                rates[i] = current;
+            }
+            tables.put(entry.getKey(), rates);
+        }
+        tables.putIfAbsent("USD", filled(days, 1.0));
+
+        // Stored rows may use any currency loaded so far, so a file that drops one is refused
+        if (!tables.keySet().containsAll(this.tables.unitsPerUsd().keySet())) {
+            throw new IllegalStateException("FX rates in " + ratesLocation + " are missing currencies that were loaded before");
+        }
+        this.tables = new RateTables(minDay, tables);
+        this.loadedModified = modified;
+        System.out.println("FxRateService: Loaded rates for " + tables.size() + " currencies over " + days + " days.");
+        if (days == 1) {
+            System.err.println("FxRateService: Rates cover only " + LocalDate.ofEpochDay(minDay)
+                + ", so every date converts at that day's rate. Point FX_RATES_LOCATION at a daily history.");
+        }
+    }
+
+    /** Re-reads the rates file if it changed; a bad file is logged and the current rates are kept. */
+    @Scheduled(fixedDelayString = "${fx.rates.reload-interval:PT6H}", initialDelayString = "${fx.rates.reload-interval:PT6H}")
+    public void reload() {
+        try {
+            long modified = lastModified();
+            if (modified > 0 && modified == loadedModified) {
+                return;
+            }
+            load();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("FxRateService: Keeping the current rates; could not reload " + ratesLocation + ": " + e.getMessage());
+        }
+    }
+
+    // 0 when the resource can't say, e.g. inside a jar, which forces a re-read
+    private long lastModified() {
+        try {
+            return ratesLocation.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public boolean supports(String currency) {
+        return currency != null && tables.unitsPerUsd().containsKey(currency.toUpperCase(Locale.ROOT));
+    }
+
+    public Set<String> supportedCurrencies() {
+        return tables.unitsPerUsd().keySet();
+    }
+
+    /** Multiplier converting an amount in {@code from} to {@code to} at the given date's rate. */
+    public double rate(String from, String to, LocalDate date) {
+        if (from.equals(to)) {
+            return 1.0;
+        }
+        RateTables current = tables;
+        double[] fromRates = table(current, from);
+        double[] toRates = table(current, to);
+        int index = indexOf(current, date, fromRates.length);
+        return toRates[index] / fromRates[index];
+    }
+
+    public double convert(double amount, String from, String to, LocalDate date) {
+        return amount * rate(from, to, date);
+    }
+
+    public String baseCurrencyOf(User user) {
+        return user.getBaseCurrency() != null ? user.getBaseCurrency() : defaultCurrency;
+    }
+
+    /** Upper-cases and checks a currency code, falling back to {@code fallback} when none is given. */
+    public String normalize(String currency, String fallback) {
+        if (currency == null || currency.isBlank()) {
+            return fallback;
+        }
+        String code = currency.trim().toUpperCase(Locale.ROOT);
+        if (!tables.unitsPerUsd().containsKey(code)) {
+            throw new RuntimeException("Unsupported currency: " + code);
+        }
+        return code;
+    }
+
+    private static double[] table(RateTables tables, String currency) {
+        double[] rates = tables.unitsPerUsd().get(currency);
+        if (rates == null) {
+            throw new RuntimeException("No FX rates for currency: " + currency);
+        }
+        return rates;
+    }
+
+    // Dates outside the loaded range use the nearest known rate; a missing date uses the latest one
+    private static int indexOf(RateTables tables, LocalDate date, int length) {
+        if (date == null) {
+            return length - 1;
+        }
+        long offset = date.toEpochDay() - tables.firstEpochDay();
+        return (int) Math.max(0, Math.min(length - 1, offset));
+    }
+
+    private static double[] filled(int length, double value) {
+        double[] values = new double[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
@@ -0,0 +1,129 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket limits for the authentication endpoints, keyed per client IP and per account.
+ * Failed attempts cost extra tokens, so repeated wrong passwords back off faster than
+ * ordinary use.
+ */
+@Service
+public class LoginRateLimiter {
+
+    private final TokenBuckets ipBuckets;
+    private final TokenBuckets accountBuckets;
+    private final int failurePenalty;
+
+    public LoginRateLimiter(
+        @Value("${auth.rate-limit.ip.capacity:20}") int ipCapacity,
+        @Value("${auth.rate-limit.ip.refill-per-minute:20}") int ipRefillPerMinute,
+        @Value("${auth.rate-limit.account.capacity:5}") int accountCapacity,
+        @Value("${auth.rate-limit.account.refill-per-minute:5}") int accountRefillPerMinute,
+        @Value("${auth.rate-limit.failure-penalty:2}") int failurePenalty
+    ) {
+        this.ipBuckets = new TokenBuckets(ipCapacity, ipRefillPerMinute);
+        this.accountBuckets = new TokenBuckets(accountCapacity, accountRefillPerMinute);
+        this.failurePenalty = failurePenalty;
+    }
+
+    public void acquire(String clientIp, String email) {
+        long waitNanos = ipBuckets.tryAcquire(clientIp);
+        if (waitNanos == 0 && email != null) {
+            waitNanos = accountBuckets.tryAcquire(accountKey(email));
+            if (waitNanos > 0) {
+                // A locked account mustn't spend the IP budget of everyone else behind the same address
+                ipBuckets.refund(clientIp);
+            }
+        }
+        if (waitNanos > 0) {
+            throw new TooManyRequestsException("Too many attempts, please try again later",
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos)));
+        }
+    }
+
+    public void recordFailure(String clientIp, String email) {
+        ipBuckets.charge(clientIp, failurePenalty);
+        if (email != null) {
+            accountBuckets.charge(accountKey(email), failurePenalty);
+        }
+    }
+
+    private static String accountKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Each bucket is a single {@link AtomicLong} holding the time at which it will be full
+     * again (GCRA form of a token bucket), updated with a CAS loop rather than a lock.
+     */
+    static final class TokenBuckets {
+        private static final int CLEANUP_THRESHOLD = 10_000;
+
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final LongSupplier clock;
+        private final AtomicLong lastCleanup;
+        private final long nanosPerToken;
+        private final long burstNanos;
+
+        TokenBuckets(int capacity, int refillPerMinute) {
+            this(capacity, refillPerMinute, System::nanoTime);
+        }
+
+        TokenBuckets(int capacity, int refillPerMinute, LongSupplier clock) {
+            this.clock = clock;
+            this.lastCleanup = new AtomicLong(clock.getAsLong());
+            this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / Math.max(1, refillPerMinute);
+            this.burstNanos = nanosPerToken * Math.max(1, capacity);
+        }
+
+        /** Takes one token; returns 0 on success or the nanoseconds until one is available. */
+        long tryAcquire(String key) {
+            long now = clock.getAsLong();
+            AtomicLong fullAt = bucket(key, now);
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + nanosPerToken;
+                if (next - now > burstNanos) {
+                    return next - now - burstNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        /** Returns a token taken by {@link #tryAcquire}, never filling the bucket past capacity. */
+        void refund(String key) {
+            long now = clock.getAsLong();
+            AtomicLong fullAt = bucket(key, now);
+            fullAt.accumulateAndGet(now, (current, n) -> Math.max(n, current - nanosPerToken));
+        }
+
+        /** Removes tokens unconditionally, possibly leaving the bucket in debt. */
+        void charge(String key, int tokens) {
+            if (tokens <= 0) {
+                return;
+            }
+            long now = clock.getAsLong();
+            AtomicLong fullAt = bucket(key, now);
+            fullAt.accumulateAndGet(now, (current, n) -> Math.max(current, n) + nanosPerToken * tokens);
+        }
+
+        private AtomicLong bucket(String key, long now) {
+            long last = lastCleanup.get();
+            if (buckets.size() > CLEANUP_THRESHOLD && now - last > TimeUnit.SECONDS.toNanos(1)
+                    && lastCleanup.compareAndSet(last, now)) {
+                // Buckets that have refilled completely behave exactly like new ones
+                buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+            }
+            return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.model.TransactionType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary snapshot layout:
+ * <pre>
+ * header   "FTSNAP" u8 version
+ * segment  u8 kind=1, i32 length, i32 crc32c, deflated payload (one user and their transactions)
+ * trailer  u8 kind=0, i64 users, i64 transactions
+ * </pre>
+ * Payloads use unsigned varints; transaction ids and dates are stored as deltas from the previous
+ * row of the same user, and strings are UTF-8 prefixed with length + 1 (0 means null).
+ */
+final class SnapshotCodec {
+
+    private static final byte[] MAGIC = {'F', 'T', 'S', 'N', 'A', 'P'};
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_USER = 1;
+    private static final int END = 0;
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    private static final int HAS_AMOUNT = 1;
+    private static final int HAS_DATE = 2;
+
+    record UserRow(
+        long id, String firstName, String lastName, String email, String phone,
+        String position, String address, String baseCurrency, String password
+    ) {}
+
+    record TransactionRow(
+        long id, String title, Double amount, LocalDate date, TransactionType type, String category, String currency
+    ) {}
+
+    record Segment(byte[] payload, int crc, long transactions) {}
+
+    record Trailer(long users, long transactions) {}
+
+    private SnapshotCodec() {}
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+    }
+
+    static void readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new RuntimeException("Not a finance tracker snapshot");
+        }
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new RuntimeException("Unsupported snapshot version " + version);
+        }
+    }
+
+    static void writeSegment(DataOutputStream out, Segment segment) throws IOException {
+        out.writeByte(SEGMENT_USER);
+        out.writeInt(segment.payload().length);
+        out.writeInt(segment.crc());
+        out.write(segment.payload());
+    }
+
+    /** Returns the next segment with its checksum verified, or null once the trailer is reached. */
+    static Segment readSegment(DataInputStream in) throws IOException {
+        int kind = in.readUnsignedByte();
+        if (kind == END) {
+            return null;
+        }
+        if (kind != SEGMENT_USER) {
+            throw new RuntimeException("Corrupt snapshot: unknown segment kind " + kind);
+        }
+        int length = in.readInt();
+        int crc = in.readInt();
+        if (length < 0 || length > MAX_SEGMENT_BYTES) {
+            throw new RuntimeException("Corrupt snapshot: segment length " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        if (crc(payload) != crc) {
+            throw new RuntimeException("Corrupt snapshot: segment checksum mismatch");
+        }
+        return new Segment(payload, crc, -1);
+    }
+
+    static void writeTrailer(DataOutputStream out, long users, long transactions) throws IOException {
+        out.writeByte(END);
+        out.writeLong(users);
+        out.writeLong(transactions);
+    }
+
+    /** Reads the trailer that follows the last segment. */
+    static Trailer readTrailer(DataInputStream in) throws IOException {
+        try {
+            return new Trailer(in.readLong(), in.readLong());
+        } catch (EOFException e) {
+            throw new RuntimeException("Corrupt snapshot: truncated trailer");
+        }
+    }
+
+    static int crc(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /** Encodes one user's segment payload; transactions must be written in ascending id order. */
+    static final class SegmentWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final OutputStream out = new DeflaterOutputStream(bytes, deflater, 8192);
+        private long previousId;
+        private long previousEpochDay;
+        private long transactions;
+
+        void writeUser(UserRow user) {
+            writeVarLong(user.id());
+            writeString(user.firstName());
+            writeString(user.lastName());
+            writeString(user.email());
+            writeString(user.phone());
+            writeString(user.position());
+            writeString(user.address());
+            writeString(user.baseCurrency());
+            writeString(user.password());
+        }
+
+        void writeTransaction(TransactionRow t) {
+            write(1);
+            writeVarLong(t.id() - previousId);
+            previousId = t.id();
+            writeString(t.title());
+            write((t.amount() != null ? HAS_AMOUNT : 0) | (t.date() != null ? HAS_DATE : 0));
+            if (t.amount() != null) {
+                long bits = Double.doubleToRawLongBits(t.amount());
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    write((int) (bits >>> shift));
+                }
+            }
+            if (t.date() != null) {
+                long epochDay = t.date().toEpochDay();
+                long delta = epochDay - previousEpochDay;
+                writeVarLong((delta << 1) ^ (delta >> 63));
+                previousEpochDay = epochDay;
+            }
+            write(t.type() != null ? t.type().ordinal() + 1 : 0);
+            writeString(t.category());
+            writeString(t.currency());
+            transactions++;
+        }
+
+        Segment finish() {
+            write(0);
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deflater.end();
+            }
+            byte[] payload = bytes.toByteArray();
+            return new Segment(payload, crc(payload), transactions);
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            write(utf8);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void write(int b) {
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void write(byte[] b) {
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    static final class SegmentReader implements AutoCloseable {
+        private static final TransactionType[] TYPES = TransactionType.values();
+
+        private final Inflater inflater = new Inflater();
+        private final InputStream in;
+        private long previousId;
+        private long previousEpochDay;
+
+        SegmentReader(Segment segment) {
+            this.in = new InflaterInputStream(new ByteArrayInputStream(segment.payload()), inflater, 8192);
+        }
+
+        UserRow readUser() {
+            return new UserRow(readVarLong(), readString(), readString(), readString(), readString(),
+                readString(), readString(), readString(), readString());
+        }
+
+        /** Returns the next transaction, or null at the end of the segment. */
+        TransactionRow nextTransaction() {
+            if (readByte() == 0) {
+                return null;
+            }
+            long id = previousId + readVarLong();
+            previousId = id;
+            String title = readString();
+            int flags = readByte();
+            Double amount = null;
+            if ((flags & HAS_AMOUNT) != 0) {
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = (bits << 8) | readByte();
+                }
+                amount = Double.longBitsToDouble(bits);
+            }
+            LocalDate date = null;
+            if ((flags & HAS_DATE) != 0) {
+                long zigzag = readVarLong();
+                previousEpochDay += (zigzag >>> 1) ^ -(zigzag & 1);
+                date = LocalDate.ofEpochDay(previousEpochDay);
+            }
+            int type = readByte();
+            if (type > TYPES.length) {
+                throw new RuntimeException("Corrupt snapshot: unknown transaction type " + type);
+            }
+            return new TransactionRow(id, title, amount, date, type == 0 ? null : TYPES[type - 1], readString(), readString());
+        }
+
+        @Override
+        public void close() {
+            inflater.end();
+        }
+
+        private int readByte() {
+            int b;
+            try {
+                b = in.read();
+            } catch (IOException e) {
+                throw new RuntimeException("Corrupt snapshot: " + e.getMessage(), e);
+            }
+            if (b < 0) {
+                throw new RuntimeException("Corrupt snapshot: truncated segment");
+            }
+            return b;
+        }
+
+        private String readString() {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            if (length - 1 > MAX_SEGMENT_BYTES) {
+                throw new RuntimeException("Corrupt snapshot: string length " + (length - 1));
+            }
+            byte[] utf8;
+            try {
+                utf8 = in.readNBytes((int) (length - 1));
+            } catch (IOException e) {
+                throw new RuntimeException("Corrupt snapshot: " + e.getMessage(), e);
+            }
+            if (utf8.length != length - 1) {
+                throw new RuntimeException("Corrupt snapshot: truncated segment");
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new RuntimeException("Corrupt snapshot: malformed varint");
+        }
+    }
+}
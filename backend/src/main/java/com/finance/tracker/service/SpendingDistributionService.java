@@ -0,0 +1,277 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.dto.AmountDistribution;
+import com.finance.tracker.model.AmountSketch;
+import com.finance.tracker.model.Transaction;
+import com.finance.tracker.model.TransactionType;
+import com.finance.tracker.model.User;
+import com.finance.tracker.repository.AmountSketchRepository;
+import com.finance.tracker.repository.TransactionRepository;
+import com.finance.tracker.repository.UserRepository;
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maintains per-user, per-type, per-category, per-month t-digests of transaction amounts
+ * and merges them to answer percentile queries without sorting the history. Inserts are
+ * added to their month's digest incrementally and updates rebuild the affected months from
+ * the transactions table. Single deletes only flag the user's digests as stale; the next query
+ * compares per-month row counts and rebuilds the months that lost rows. Bulk mutations drop
+ * the user's digests, which are rebuilt in one pass on next use.
+ */
+@Service
+@RequiredArgsConstructor
+public class SpendingDistributionService {
+
+    private static final double COMPRESSION = 100;
+    private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final AmountSketchRepository sketchRepository;
+    private final TransactionRepository transactionRepository;
+    private final FxRateService fxRateService;
+    private final UserRepository userRepository;
+
+    public void recordInserts(User user, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        if (!sketchRepository.existsByUserId(user.getId())) {
+            // First digests for this user: build them from the whole history, which includes these rows
+            rebuildAll(user);
+            return;
+        }
+
+        String baseCurrency = fxRateService.baseCurrencyOf(user);
+        Map<Bucket, List<Double>> amountsByBucket = new HashMap<>();
+        for (Transaction t : transactions) {
+            if (t.getDate() == null) {
+                continue;
+            }
+            amountsByBucket.computeIfAbsent(Bucket.of(t.getType(), t.getCategory(), t.getDate()), b -> new ArrayList<>())
+                .add(toBase(t.getAmount(), t.getCurrency(), t.getDate(), baseCurrency));
+        }
+        amountsByBucket.forEach((bucket, amounts) -> addToBucket(user, bucket, amounts));
+    }
+
+    /** Recomputes the month bucket a transaction with these values falls into. */
+    public void refreshBucket(User user, TransactionType type, String category, LocalDate date) {
+        if (date == null || !sketchRepository.existsByUserId(user.getId())) {
+            return;
+        }
+        rebuildBucket(user, Bucket.of(type, category, date));
+    }
+
+    /** Flags the user's digests as possibly holding deleted rows, without reading anything. */
+    public void markStale(User user) {
+        userRepository.markSketchesStale(user.getId());
+    }
+
+    /** Drops all of the user's digests; they are rebuilt from the transactions on next use. */
+    public void invalidate(User user) {
+        sketchRepository.deleteAllByUserId(user.getId());
+    }
+
+    public AmountDistribution getDistribution(
+        User user, TransactionType type, String category, LocalDate startDate, LocalDate endDate, List<Double> quantiles
+    ) {
+        boolean stale = Boolean.TRUE.equals(user.getSketchesStale());
+        if (!sketchRepository.existsByUserId(user.getId()) && transactionRepository.existsByUser(user)) {
+            rebuildAll(user);
+        } else if (stale) {
+            reconcile(user);
+        }
+        if (stale) {
+            userRepository.clearSketchesStale(user.getId(), user.getDataVersion() != null ? user.getDataVersion() : 0);
+        }
+        String baseCurrency = fxRateService.baseCurrencyOf(user);
+        String categoryKey = category != null && !category.isEmpty() ? category.toLowerCase(Locale.ROOT) : null;
+        LocalDate from = startDate != null ? startDate : MIN_DATE;
+        LocalDate to = endDate != null ? endDate : MAX_DATE;
+
+        MergingDigest merged = new MergingDigest(COMPRESSION);
+        long count = 0;
+        double sum = 0;
+
+        if (!from.isAfter(to)) {
+            // Whole months come from the stored digests; partial months at either end come from the rows
+            LocalDate firstFullMonth = from.getDayOfMonth() == 1 ? from : from.withDayOfMonth(1).plusMonths(1);
+            LocalDate lastFullMonth = to.getDayOfMonth() == to.lengthOfMonth() ? to.withDayOfMonth(1) : to.withDayOfMonth(1).minusMonths(1);
+
+            List<LocalDate[]> rawRanges = new ArrayList<>();
+            if (firstFullMonth.isAfter(lastFullMonth)) {
+                rawRanges.add(new LocalDate[] {from, to});
+            } else {
+                List<TDigest> digests = new ArrayList<>();
+                for (AmountSketch sketch : sketchRepository.findForRange(user.getId(), type, categoryKey, firstFullMonth, lastFullMonth)) {
+                    digests.add(decode(sketch.getDigest()));
+                    count += sketch.getCount();
+                    sum += sketch.getSum();
+                }
+                merged.add(digests);
+                if (from.isBefore(firstFullMonth)) {
+                    rawRanges.add(new LocalDate[] {from, firstFullMonth.minusDays(1)});
+                }
+                LocalDate afterLastFull = lastFullMonth.plusMonths(1);
+                if (!to.isBefore(afterLastFull)) {
+                    rawRanges.add(new LocalDate[] {afterLastFull, to});
+                }
+            }
+
+            for (LocalDate[] range : rawRanges) {
+                for (Object[] row : transactionRepository.findSketchRowsForRange(user.getId(), type, categoryKey, range[0], range[1])) {
+                    double amount = toBase((Double) row[3], (String) row[4], (LocalDate) row[2], baseCurrency);
+                    merged.add(amount);
+                    count++;
+                    sum += amount;
+                }
+            }
+        }
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        if (count == 0) {
+            return new AmountDistribution(baseCurrency, 0, null, null, null, values);
+        }
+        for (Double q : quantiles) {
+            values.put(String.valueOf(q), merged.quantile(q));
+        }
+        return new AmountDistribution(baseCurrency, count, merged.getMin(), merged.getMax(), sum / count, values);
+    }
+
+    private void addToBucket(User user, Bucket bucket, List<Double> amounts) {
+        try {
+            AmountSketch sketch = sketchRepository
+                .findByUserIdAndTypeAndCategoryAndMonthStart(user.getId(), bucket.type(), bucket.category(), bucket.monthStart())
+                .orElseGet(() -> newSketch(user, bucket));
+            TDigest digest = sketch.getDigest() != null ? decode(sketch.getDigest()) : new MergingDigest(COMPRESSION);
+            for (double amount : amounts) {
+                digest.add(amount);
+                sketch.setSum(sketch.getSum() + amount);
+            }
+            sketch.setCount(sketch.getCount() + amounts.size());
+            sketch.setDigest(encode(digest));
+            sketchRepository.save(sketch);
+        } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // A concurrent write touched the same month; recompute it from the committed rows
+            rebuildBucket(user, bucket);
+        }
+    }
+
+    private void rebuildBucket(User user, Bucket bucket) {
+        try {
+            LocalDate monthEnd = bucket.monthStart().plusMonths(1).minusDays(1);
+            List<Object[]> rows = transactionRepository.findSketchRowsForBucket(
+                user.getId(), bucket.type(), bucket.category(), bucket.monthStart(), monthEnd);
+            AmountSketch sketch = sketchRepository
+                .findByUserIdAndTypeAndCategoryAndMonthStart(user.getId(), bucket.type(), bucket.category(), bucket.monthStart())
+                .orElse(null);
+            if (rows.isEmpty()) {
+                if (sketch != null) {
+                    sketchRepository.delete(sketch);
+                }
+                return;
+            }
+            if (sketch == null) {
+                sketch = newSketch(user, bucket);
+            }
+            fill(sketch, rows, fxRateService.baseCurrencyOf(user));
+            sketchRepository.save(sketch);
+        } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+            System.err.println("SpendingDistributionService: Conflict rebuilding " + bucket + ", dropping digests for user ID " + user.getId());
+            invalidate(user);
+        }
+    }
+
+    // Digests only count more rows than the table after deletes, so a count mismatch marks every month to rebuild
+    private void reconcile(User user) {
+        Map<Bucket, Long> rowCounts = new HashMap<>();
+        for (Object[] row : transactionRepository.countSketchRowsByMonth(user.getId())) {
+            LocalDate monthStart = LocalDate.of(((Number) row[2]).intValue(), ((Number) row[3]).intValue(), 1);
+            rowCounts.put(Bucket.of((TransactionType) row[0], (String) row[1], monthStart), ((Number) row[4]).longValue());
+        }
+        int rebuilt = 0;
+        for (Object[] sketch : sketchRepository.findCountsByUserId(user.getId())) {
+            Bucket bucket = new Bucket((TransactionType) sketch[0], (String) sketch[1], (LocalDate) sketch[2]);
+            if (rowCounts.getOrDefault(bucket, 0L) != ((Number) sketch[3]).longValue()) {
+                rebuildBucket(user, bucket);
+                rebuilt++;
+            }
+        }
+        System.out.println("SpendingDistributionService: Reconciled digests for user ID " + user.getId() + ", rebuilt " + rebuilt);
+    }
+
+    private void rebuildAll(User user) {
+        sketchRepository.deleteAllByUserId(user.getId());
+        Map<Bucket, List<Object[]>> rowsByBucket = new HashMap<>();
+        for (Object[] row : transactionRepository.findSketchRowsByUserId(user.getId())) {
+            rowsByBucket.computeIfAbsent(Bucket.of((TransactionType) row[0], (String) row[1], (LocalDate) row[2]), b -> new ArrayList<>())
+                .add(row);
+        }
+
+        String baseCurrency = fxRateService.baseCurrencyOf(user);
+        List<AmountSketch> sketches = new ArrayList<>();
+        rowsByBucket.forEach((bucket, rows) -> {
+            AmountSketch sketch = newSketch(user, bucket);
+            fill(sketch, rows, baseCurrency);
+            sketches.add(sketch);
+        });
+        sketchRepository.saveAll(sketches);
+        System.out.println("SpendingDistributionService: Built " + sketches.size() + " digests for user ID " + user.getId());
+    }
+
+    private void fill(AmountSketch sketch, List<Object[]> rows, String baseCurrency) {
+        TDigest digest = new MergingDigest(COMPRESSION);
+        double sum = 0;
+        for (Object[] row : rows) {
+            double amount = toBase((Double) row[3], (String) row[4], (LocalDate) row[2], baseCurrency);
+            digest.add(amount);
+            sum += amount;
+        }
+        sketch.setCount(rows.size());
+        sketch.setSum(sum);
+        sketch.setDigest(encode(digest));
+    }
+
+    private AmountSketch newSketch(User user, Bucket bucket) {
+        AmountSketch sketch = new AmountSketch();
+        sketch.setUserId(user.getId());
+        sketch.setType(bucket.type());
+        sketch.setCategory(bucket.category());
+        sketch.setMonthStart(bucket.monthStart());
+        return sketch;
+    }
+
+    private double toBase(Double amount, String currency, LocalDate date, String baseCurrency) {
+        double value = amount != null ? amount : 0.0;
+        return currency == null ? value : fxRateService.convert(value, currency, baseCurrency, date);
+    }
+
+    private static byte[] encode(TDigest digest) {
+        digest.compress();
+        ByteBuffer buffer = ByteBuffer.allocate(digest.smallByteSize());
+        digest.asSmallBytes(buffer);
+        return buffer.array();
+    }
+
+    private static TDigest decode(byte[] bytes) {
+        return MergingDigest.fromBytes(ByteBuffer.wrap(bytes));
+    }
+
+    private record Bucket(TransactionType type, String category, LocalDate monthStart) {
+        static Bucket of(TransactionType type, String category, LocalDate date) {
+            return new Bucket(type, category != null ? category.toLowerCase(Locale.ROOT) : "", date.withDayOfMonth(1));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.dto.TransactionResponse;
+import com.finance.tracker.model.TransactionType;
+import com.finance.tracker.model.User;
+import com.finance.tracker.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches filtered transaction lists per user. Keys carry the user's data version, which every
+ * write bumps in the database in its own transaction, so a reader never sees the new version
+ * without the new rows. Stale entries are never looked up again and simply age out
+ * under the size-weighted W-TinyLFU eviction. One entry serves the JSON, Smile, CBOR,
+ * columnar and CSV representations of the same list.
+ */
+@Service
+public class TransactionListCache {
+
+    // Rough per-row overhead of a TransactionResponse (object headers, boxed fields, list slot)
+    private static final int ROW_OVERHEAD_BYTES = 160;
+
+    private final UserRepository userRepository;
+    private final Cache<Key, List<TransactionResponse>> cache;
+
+    public TransactionListCache(
+        UserRepository userRepository,
+        MeterRegistry meterRegistry,
+        @Value("${transactions.list-cache.max-bytes:33554432}") long maxBytes,
+        @Value("${transactions.list-cache.expire-after-access:1h}") Duration expireAfterAccess
+    ) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Key key, List<TransactionResponse> rows) -> estimateBytes(rows))
+            .expireAfterAccess(expireAfterAccess)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "transactionLists");
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+            .tag("cache", "transactionLists")
+            .description("Share of transaction list lookups served from the cache")
+            .register(meterRegistry);
+    }
+
+    public List<TransactionResponse> get(
+        User user, TransactionType type, String category, LocalDate startDate, LocalDate endDate,
+        Supplier<List<TransactionResponse>> loader
+    ) {
+        long version = user.getDataVersion() != null ? user.getDataVersion() : 0L;
+        Key key = new Key(user.getId(), version, type, category, startDate, endDate);
+        return cache.get(key, k -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * Call inside the transaction of any write that changes what the user's lists would return.
+     * A bump committed separately would let a reader cache the old rows under the new version.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markChanged(User user) {
+        userRepository.bumpDataVersion(user.getId());
+    }
+
+    /** Drops every cached list, e.g. after a restore replaced users whose versions may repeat. */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static int estimateBytes(List<TransactionResponse> rows) {
+        long bytes = 64;
+        for (TransactionResponse row : rows) {
+            bytes += ROW_OVERHEAD_BYTES + 2L * (length(row.getTitle()) + length(row.getCategory()));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    // Filters are already normalized by the caller (type parsed, category lower-cased)
+    private record Key(Long userId, long version, TransactionType type, String category,
+                       LocalDate startDate, LocalDate endDate) {
+    }
+}
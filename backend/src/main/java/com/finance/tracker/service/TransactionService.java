@@ -6,7 +6,13 @@ import com.finance.tracker.repository.UserRepository;
 import com.finance.tracker.model.User;
 import com.finance.tracker.model.TransactionType;
 import lombok.RequiredArgsConstructor;
+import com.finance.tracker.dto.AmountDistribution;
+import com.finance.tracker.dto.AnomalyResponse;
+import com.finance.tracker.dto.BulkTransactionMutationRequest;
+import com.finance.tracker.dto.BulkTransactionRequest;
+import com.finance.tracker.dto.BulkTransactionResponse;
 import com.finance.tracker.dto.CreateTransactionDto;
+import com.finance.tracker.dto.TransactionColumns;
 import com.finance.tracker.dto.TransactionResponse;
 
 import org.springframework.security.core.Authentication;
@@ -14,12 +20,17 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException; 
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.Comparator;
+import java.util.Set;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
 
@@ -28,6 +39,11 @@ import java.io.PrintWriter;
 public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository; 
+    private final FxRateService fxRateService;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final TransactionListCache transactionListCache;
+    private final SpendingDistributionService spendingDistributionService;
+    private final AnomalyDetectionService anomalyDetectionService;
 
     // Helper method to get the current authenticated user
     private User getCurrentAuthenticatedUser() {
@@ -52,36 +68,132 @@ public class TransactionService {
         return foundUser;
     }
 
-    public Map<String, Double> getSummary() {
+    public Map<String, Object> getSummary() {
         System.out.println("TransactionService: getSummary method called."); 
         User currentUser = getCurrentAuthenticatedUser(); 
         System.out.println("TransactionService: getSummary for user: " + currentUser.getEmail()); 
-        
-        Double income = transactionRepository.getTotalIncomeByUser(currentUser) != null ?
-                       transactionRepository.getTotalIncomeByUser(currentUser) : 0.0;
-        Double expense = transactionRepository.getTotalExpenseByUser(currentUser) != null ?
-                        transactionRepository.getTotalExpenseByUser(currentUser) : 0.0;
+        String baseCurrency = fxRateService.baseCurrencyOf(currentUser);
+
+        // Base-currency rows are summed by the database; other currencies come back grouped per
+        // currency and day and are converted at that day's rate from the in-memory table.
+        double income = 0.0;
+        double expense = 0.0;
+        for (Object[] row : transactionRepository.sumBaseCurrencyByType(currentUser, baseCurrency)) {
+            double sum = row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
+            if (row[0] == TransactionType.INCOME) {
+                income += sum;
+            } else {
+                expense += sum;
+            }
+        }
+        for (Object[] row : transactionRepository.sumForeignCurrencyByTypeAndDate(currentUser, baseCurrency)) {
+            double sum = row[3] != null ? ((Number) row[3]).doubleValue() : 0.0;
+            double converted = fxRateService.convert(sum, (String) row[1], baseCurrency, (LocalDate) row[2]);
+            if (row[0] == TransactionType.INCOME) {
+                income += converted;
+            } else {
+                expense += converted;
+            }
+        }
 
-        System.out.println("TransactionService: Income: " + income + ", Expense: " + expense); 
+        System.out.println("TransactionService: Income: " + income + ", Expense: " + expense + " " + baseCurrency); 
         return Map.of(
             "totalIncome", income,
             "totalExpense", expense,
-            "balance", income - expense
+            "balance", income - expense,
+            "currency", baseCurrency
         );
     }
 
+    @Transactional
     public Transaction createTransaction(CreateTransactionDto dto) {
         System.out.println("TransactionService: createTransaction method called."); 
         User currentUser = getCurrentAuthenticatedUser(); 
+        Transaction transaction = buildTransaction(dto, currentUser);
+        Long duplicateOf = duplicateDetectionService.findDuplicate(currentUser, transaction.getFingerprint());
+
+        Transaction saved = transactionRepository.save(transaction);
+        transactionListCache.markChanged(currentUser);
+        duplicateDetectionService.record(currentUser, saved.getFingerprint());
+        spendingDistributionService.recordInserts(currentUser, List.of(saved));
+        anomalyDetectionService.score(currentUser, saved);
+        if (duplicateOf != null) {
+            System.out.println("TransactionService: Transaction " + saved.getId() + " looks like a duplicate of " + duplicateOf);
+            saved.setDuplicateOf(duplicateOf);
+        }
+        return saved;
+    }
+
+    @Transactional
+    public BulkTransactionResponse createTransactions(BulkTransactionRequest request) {
+        System.out.println("TransactionService: createTransactions method called with " + request.getTransactions().size() + " rows."); 
+        User currentUser = getCurrentAuthenticatedUser(); 
+        List<Transaction> toSave = new ArrayList<>();
+        List<Integer> duplicateIndexes = new ArrayList<>();
+        Set<Long> batchFingerprints = new HashSet<>();
+
+        for (int i = 0; i < request.getTransactions().size(); i++) {
+            Transaction transaction = buildTransaction(request.getTransactions().get(i), currentUser);
+            long fingerprint = transaction.getFingerprint();
+            boolean duplicate = !batchFingerprints.add(fingerprint)
+                || duplicateDetectionService.findDuplicate(currentUser, fingerprint) != null;
+            if (duplicate) {
+                duplicateIndexes.add(i);
+                if (request.isSkipDuplicates()) {
+                    continue;
+                }
+            }
+            toSave.add(transaction);
+        }
+
+        transactionRepository.saveAll(toSave);
+        transactionListCache.markChanged(currentUser);
+        toSave.forEach(t -> duplicateDetectionService.record(currentUser, t.getFingerprint()));
+        spendingDistributionService.recordInserts(currentUser, toSave);
+        anomalyDetectionService.learn(currentUser, toSave);
+        return new BulkTransactionResponse(toSave.size(), request.getTransactions().size() - toSave.size(), duplicateIndexes);
+    }
+
+    public List<List<TransactionResponse>> findDuplicateTransactions(int windowDays) {
+        System.out.println("TransactionService: findDuplicateTransactions method called with window " + windowDays + " days."); 
+        User currentUser = getCurrentAuthenticatedUser(); 
+        return duplicateDetectionService.findNearDuplicates(currentUser, Math.max(0, windowDays));
+    }
+
+    public List<AnomalyResponse> getAnomalies(int limit) {
+        System.out.println("TransactionService: getAnomalies method called with limit " + limit); 
+        User currentUser = getCurrentAuthenticatedUser(); 
+        return anomalyDetectionService.findAnomalies(currentUser, limit);
+    }
+
+    public AmountDistribution getAmountDistribution(
+        String type, String category, LocalDate startDate, LocalDate endDate, List<Double> quantiles
+    ) {
+        System.out.println("TransactionService: getAmountDistribution method called with filters."); 
+        User currentUser = getCurrentAuthenticatedUser(); 
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) {
+                throw new RuntimeException("Quantiles must be between 0 and 1");
+            }
+        }
+        TransactionType typeFilter = parseType(type);
+        if (hasText(type) && typeFilter == null) {
+            throw new RuntimeException("Unknown transaction type: " + type);
+        }
+        return spendingDistributionService.getDistribution(currentUser, typeFilter, category, startDate, endDate, quantiles);
+    }
+
+    private Transaction buildTransaction(CreateTransactionDto dto, User user) {
         Transaction transaction = new Transaction();
         transaction.setTitle(dto.getTitle());
         transaction.setAmount(dto.getAmount());
         transaction.setDate(dto.getDate() != null ? dto.getDate() : LocalDate.now());
         transaction.setType(dto.getType());
         transaction.setCategory(dto.getCategory());
-        transaction.setUser(currentUser); 
-
-        return transactionRepository.save(transaction);
+        transaction.setCurrency(fxRateService.normalize(dto.getCurrency(), fxRateService.baseCurrencyOf(user)));
+        transaction.setUser(user); 
+        transaction.setFingerprint(duplicateDetectionService.fingerprint(transaction));
+        return transaction;
     }
 
     public List<TransactionResponse> getAllTransactions(
@@ -89,52 +201,122 @@ public class TransactionService {
     ) {
         System.out.println("TransactionService: getAllTransactions method called with filters."); 
         User currentUser = getCurrentAuthenticatedUser(); 
-        List<Transaction> transactions = transactionRepository.findAllByUserOrderByDateDesc(currentUser); 
+        List<TransactionResponse> filteredTransactions = findFilteredResponses(currentUser, type, category, startDate, endDate);
 
-        List<Transaction> filteredTransactions = transactions.stream()
-            .filter(t -> {
-                boolean matches = true;
-                if (t.getDate() == null) {
-                    return false; 
-                }
+        System.out.println("TransactionService: Found " + filteredTransactions.size() + " filtered transactions."); 
+        return filteredTransactions;
+    }
 
-                if (type != null && !type.isEmpty()) {
-                    matches = matches && t.getType().name().equalsIgnoreCase(type);
-                }
-                if (category != null && !category.isEmpty()) {
-                    matches = matches && t.getCategory() != null && t.getCategory().equalsIgnoreCase(category);
-                }
-                if (startDate != null) {
-                    matches = matches && (t.getDate().isEqual(startDate) || t.getDate().isAfter(startDate));
-                }
-                if (endDate != null) {
-                    matches = matches && (t.getDate().isEqual(endDate) || t.getDate().isBefore(endDate));
+    public TransactionColumns getTransactionColumns(
+        String type, String category, LocalDate startDate, LocalDate endDate
+    ) {
+        System.out.println("TransactionService: getTransactionColumns method called with filters."); 
+        User currentUser = getCurrentAuthenticatedUser(); 
+        return toColumns(findFilteredResponses(currentUser, type, category, startDate, endDate));
+    }
+
+    private List<TransactionResponse> findFilteredResponses(
+        User user, String type, String category, LocalDate startDate, LocalDate endDate
+    ) {
+        TransactionType typeFilter = parseType(type);
+        if (hasText(type) && typeFilter == null) {
+            return List.of();
+        }
+        String categoryFilter = normalizeCategoryFilter(category);
+        return transactionListCache.get(user, typeFilter, categoryFilter, startDate, endDate, () -> {
+            List<TransactionResponse> rows = transactionRepository.findResponsesByUser(user, typeFilter, categoryFilter, startDate, endDate);
+            String baseCurrency = fxRateService.baseCurrencyOf(user);
+            for (TransactionResponse row : rows) {
+                if (row.getCurrency() == null) {
+                    row.setCurrency(baseCurrency);
                 }
-                return matches;
-            })
-            .sorted(Comparator.comparing(Transaction::getDate).reversed()) 
-            .collect(Collectors.toList());
+            }
+            return rows;
+        });
+    }
 
-        System.out.println("TransactionService: Found " + filteredTransactions.size() + " filtered transactions."); 
-        return filteredTransactions.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    private static TransactionType parseType(String type) {
+        if (!hasText(type)) {
+            return null;
+        }
+        return Arrays.stream(TransactionType.values())
+            .filter(t -> t.name().equalsIgnoreCase(type))
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static String normalizeCategoryFilter(String category) {
+        return hasText(category) ? category.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    static TransactionColumns toColumns(List<TransactionResponse> rows) {
+        int n = rows.size();
+        long[] ids = new long[n];
+        String[] titles = new String[n];
+        double[] amounts = new double[n];
+        long[] epochDays = new long[n];
+        int[] typeIndexes = new int[n];
+        int[] categoryIndexes = new int[n];
+        int[] currencyIndexes = new int[n];
+        List<String> categories = new ArrayList<>();
+        Map<String, Integer> categoryLookup = new HashMap<>();
+        List<String> currencies = new ArrayList<>();
+        Map<String, Integer> currencyLookup = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            TransactionResponse t = rows.get(i);
+            ids[i] = t.getId();
+            titles[i] = t.getTitle();
+            amounts[i] = t.getAmount() != null ? t.getAmount() : 0.0;
+            epochDays[i] = t.getDate().toEpochDay();
+            typeIndexes[i] = t.getType().ordinal();
+            if (t.getCategory() == null) {
+                categoryIndexes[i] = -1;
+            } else {
+                categoryIndexes[i] = categoryLookup.computeIfAbsent(t.getCategory(), c -> {
+                    categories.add(c);
+                    return categories.size() - 1;
+                });
+            }
+            currencyIndexes[i] = currencyLookup.computeIfAbsent(t.getCurrency(), c -> {
+                currencies.add(c);
+                return currencies.size() - 1;
+            });
+        }
+        return new TransactionColumns(n, TransactionType.values(), categories, currencies,
+            ids, titles, amounts, epochDays, typeIndexes, categoryIndexes, currencyIndexes);
     }
 
+    @Transactional
     public Transaction updateTransaction(Long id, CreateTransactionDto dto) {
         System.out.println("TransactionService: updateTransaction method called for ID: " + id); 
         User currentUser = getCurrentAuthenticatedUser(); 
         try {
             Transaction existingTransaction = transactionRepository.findByIdAndUser(id, currentUser)
                 .orElseThrow(() -> new RuntimeException("Transaction not found or not owned by current user with ID: " + id));
+            TransactionType previousType = existingTransaction.getType();
+            String previousCategory = existingTransaction.getCategory();
+            LocalDate previousDate = existingTransaction.getDate();
 
             existingTransaction.setTitle(dto.getTitle());
             existingTransaction.setAmount(dto.getAmount());
             existingTransaction.setDate(dto.getDate() != null ? dto.getDate() : LocalDate.now());
             existingTransaction.setType(dto.getType());
             existingTransaction.setCategory(dto.getCategory());
+            existingTransaction.setCurrency(fxRateService.normalize(dto.getCurrency(), fxRateService.baseCurrencyOf(currentUser)));
+            existingTransaction.setFingerprint(duplicateDetectionService.fingerprint(existingTransaction));
 
-            return transactionRepository.save(existingTransaction);
+            Transaction saved = transactionRepository.save(existingTransaction);
+            transactionListCache.markChanged(currentUser);
+            duplicateDetectionService.record(currentUser, saved.getFingerprint());
+            spendingDistributionService.refreshBucket(currentUser, previousType, previousCategory, previousDate);
+            spendingDistributionService.refreshBucket(currentUser, saved.getType(), saved.getCategory(), saved.getDate());
+            anomalyDetectionService.rescore(currentUser, saved);
+            return saved;
         } catch (Exception e) {
             System.err.println("Error updating transaction: " + e.getMessage());
             e.printStackTrace();
@@ -142,14 +324,17 @@ public class TransactionService {
         }
     }
 
+    @Transactional
     public void deleteTransaction(Long id) {
         System.out.println("TransactionService: deleteTransaction method called for ID: " + id); 
         User currentUser = getCurrentAuthenticatedUser(); 
         try {
-            if (!transactionRepository.existsByIdAndUser(id, currentUser)) {
+            if (transactionRepository.deleteByIdAndUser(id, currentUser) == 0) {
                 throw new RuntimeException("Transaction not found or not owned by current user with ID: " + id);
             }
-            transactionRepository.deleteById(id);
+            transactionListCache.markChanged(currentUser);
+            // The deleted row's month is not known here; its digest is reconciled on the next distribution query
+            spendingDistributionService.markStale(currentUser);
         } catch (Exception e) {
             System.err.println("Error deleting transaction: " + e.getMessage());
             e.printStackTrace();
@@ -157,6 +342,75 @@ public class TransactionService {
         }
     }
 
+    @Transactional
+    public Map<String, Integer> deleteTransactions(BulkTransactionMutationRequest request) {
+        System.out.println("TransactionService: deleteTransactions method called."); 
+        User currentUser = getCurrentAuthenticatedUser(); 
+        int affected;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            affected = transactionRepository.deleteByIdsAndUser(request.getIds(), currentUser);
+        } else if (hasFilter(request)) {
+            TransactionType typeFilter = parseType(request.getType());
+            affected = hasText(request.getType()) && typeFilter == null ? 0
+                : transactionRepository.deleteByUserAndFilter(currentUser, typeFilter,
+                    normalizeCategoryFilter(request.getCategory()), request.getStartDate(), request.getEndDate());
+        } else {
+            throw new RuntimeException("Specify ids or at least one filter; use purge to delete all transactions");
+        }
+        if (affected > 0) {
+            transactionListCache.markChanged(currentUser);
+            spendingDistributionService.invalidate(currentUser);
+        }
+        System.out.println("TransactionService: Deleted " + affected + " transactions."); 
+        return Map.of("affected", affected);
+    }
+
+    @Transactional
+    public Map<String, Integer> recategorizeTransactions(BulkTransactionMutationRequest request) {
+        System.out.println("TransactionService: recategorizeTransactions method called."); 
+        User currentUser = getCurrentAuthenticatedUser(); 
+        String newCategory = hasText(request.getNewCategory()) ? request.getNewCategory() : null;
+        int affected;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            affected = transactionRepository.recategorizeByIdsAndUser(request.getIds(), currentUser, newCategory);
+        } else if (hasFilter(request)) {
+            TransactionType typeFilter = parseType(request.getType());
+            affected = hasText(request.getType()) && typeFilter == null ? 0
+                : transactionRepository.recategorizeByUserAndFilter(currentUser, typeFilter,
+                    normalizeCategoryFilter(request.getCategory()), request.getStartDate(), request.getEndDate(), newCategory);
+        } else {
+            throw new RuntimeException("Specify ids or at least one filter to recategorize");
+        }
+        if (affected > 0) {
+            // Category is part of the fingerprint: re-hash the cleared rows in the same transaction
+            duplicateDetectionService.fillMissingFingerprints(currentUser);
+            duplicateDetectionService.invalidate(currentUser);
+            transactionListCache.markChanged(currentUser);
+            spendingDistributionService.invalidate(currentUser);
+        }
+        System.out.println("TransactionService: Recategorized " + affected + " transactions."); 
+        return Map.of("affected", affected);
+    }
+
+    @Transactional
+    public Map<String, Integer> purgeTransactions() {
+        System.out.println("TransactionService: purgeTransactions method called."); 
+        User currentUser = getCurrentAuthenticatedUser(); 
+        int affected = transactionRepository.deleteAllByUserId(currentUser.getId());
+        transactionListCache.markChanged(currentUser);
+        duplicateDetectionService.invalidate(currentUser);
+        spendingDistributionService.invalidate(currentUser);
+        // Nothing left to compare against; the next transaction starts a fresh baseline
+        anomalyDetectionService.forget(currentUser.getId());
+        System.out.println("TransactionService: Purged " + affected + " transactions."); 
+        return Map.of("affected", affected);
+    }
+
+    private static boolean hasFilter(BulkTransactionMutationRequest request) {
+        return hasText(request.getType()) || hasText(request.getCategory())
+            || request.getStartDate() != null || request.getEndDate() != null;
+    }
+
     public TransactionResponse convertToDto(Transaction transaction) {
         System.out.println("TransactionService: convertToDto called for transaction ID: " + transaction.getId()); 
         return new TransactionResponse(
@@ -165,7 +419,8 @@ public class TransactionService {
             transaction.getAmount(),
             transaction.getDate(),
             transaction.getType(),
-            transaction.getCategory()
+            transaction.getCategory(),
+            transaction.getCurrency()
         );
     }
 
@@ -174,16 +429,17 @@ public class TransactionService {
         try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
              PrintWriter writer = new PrintWriter(bos)) {
 
-            writer.println("ID,Date,Type,Category,Title,Amount");
+            writer.println("ID,Date,Type,Category,Title,Amount,Currency");
 
             for (TransactionResponse t : transactions) {
-                writer.printf("%d,%s,%s,%s,\"%s\",%.2f%n",
+                writer.printf("%d,%s,%s,%s,\"%s\",%.2f,%s%n",
                     t.getId(),
                     t.getDate().toString(),
                     t.getType().name(),
                     t.getCategory() != null ? t.getCategory() : "", 
                     t.getTitle().replace("\"", "\"\""),
-                    t.getAmount()
+                    t.getAmount(),
+                    t.getCurrency() != null ? t.getCurrency() : ""
                 );
             }
             writer.flush();
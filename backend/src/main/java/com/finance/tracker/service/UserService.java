@@ -2,22 +2,33 @@ package com.finance.tracker.service;
 
 import com.finance.tracker.model.User;
 import com.finance.tracker.repository.UserRepository;
+import com.finance.tracker.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.security.crypto.password.PasswordEncoder; 
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder; 
+    private final PasswordHashingService passwordHashingService;
+    private final FxRateService fxRateService;
+    private final TransactionRepository transactionRepository;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final TransactionListCache transactionListCache;
+    private final SpendingDistributionService spendingDistributionService;
+    private final AnomalyDetectionService anomalyDetectionService;
 
     public User getUserById(Long id) { 
         return userRepository.findById(id) 
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + id)); 
     }
 
+    @Transactional
     public User updateProfile(Long id, User updatedUser) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + id));
@@ -28,11 +39,49 @@ public class UserService {
         existingUser.setPhone(updatedUser.getPhone());
         existingUser.setPosition(updatedUser.getPosition());
         existingUser.setAddress(updatedUser.getAddress());
+        boolean baseCurrencyChanged = false;
+        if (updatedUser.getBaseCurrency() != null) {
+            String baseCurrency = fxRateService.normalize(updatedUser.getBaseCurrency(), null);
+            String previousBaseCurrency = fxRateService.baseCurrencyOf(existingUser);
+            baseCurrencyChanged = !baseCurrency.equals(existingUser.getBaseCurrency());
+            if (baseCurrencyChanged) {
+                // Legacy rows without a currency keep meaning the old base, not the new one
+                int pinned = transactionRepository.fillMissingCurrency(id, previousBaseCurrency);
+                System.out.println("UserService: Pinned " + pinned + " transactions to " + previousBaseCurrency + " for user ID " + id);
+            }
+            existingUser.setBaseCurrency(baseCurrency);
+        }
 
         if (updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
-            existingUser.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
+            existingUser.setPassword(passwordHashingService.encode(updatedUser.getPassword()));
+        }
+
+        User saved = userRepository.save(existingUser);
+        // Lists fill in the base currency for rows without one
+        transactionListCache.markChanged(saved);
+        if (baseCurrencyChanged) {
+            // Amount sketches and anomaly baselines hold base-currency values
+            spendingDistributionService.invalidate(saved);
+            anomalyDetectionService.forget(id);
+        }
+        return saved;
+    }
+
+    // Two set-based deletes instead of hydrating User.transactions and removing rows one by one
+    @Transactional
+    public Map<String, Integer> deleteAccount(Long id) {
+        User user = getUserById(id);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !user.getEmail().equals(authentication.getName())) {
+            throw new RuntimeException("Only the account owner can delete this account");
         }
 
-        return userRepository.save(existingUser);
+        spendingDistributionService.invalidate(user);
+        int transactions = transactionRepository.deleteAllByUserId(id);
+        userRepository.deleteUserById(id);
+        duplicateDetectionService.invalidate(user);
+        anomalyDetectionService.forget(id);
+        System.out.println("UserService: Deleted account " + id + " and " + transactions + " transactions.");
+        return Map.of("transactions", transactions, "users", 1);
     }
-}
\ No newline at end of file
+}
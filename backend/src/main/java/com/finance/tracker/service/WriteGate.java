@@ -0,0 +1,49 @@
+package com.finance.tracker.service;
+
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps writes out while a restore replaces the database. Mutating API requests hold the shared
+ * side for their duration; a restore takes the exclusive side once in-flight writes drain, and
+ * requests arriving meanwhile are turned away instead of queuing behind it.
+ */
+@Component
+public class WriteGate {
+
+    // Fair, so a waiting restore is not starved by a steady stream of writes
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    /** Returns false while a restore holds the gate; callers that get true must call {@link #exit()}. */
+    public boolean tryEnter() {
+        try {
+            // The timed form honours fairness, unlike tryLock()
+            return lock.readLock().tryLock(0, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void exit() {
+        lock.readLock().unlock();
+    }
+
+    /** Waits for in-flight writes to finish and blocks new ones until {@link #open()}. */
+    public void close(Duration timeout) {
+        try {
+            if (!lock.writeLock().tryLock(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Writes are still in progress or another restore is running; try again shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for writes to finish", e);
+        }
+    }
+
+    public void open() {
+        lock.writeLock().unlock();
+    }
+}
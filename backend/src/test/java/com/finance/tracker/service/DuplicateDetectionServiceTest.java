@@ -0,0 +1,125 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.dto.TransactionResponse;
+import com.finance.tracker.model.Transaction;
+import com.finance.tracker.model.TransactionType;
+import com.finance.tracker.model.User;
+import com.finance.tracker.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DuplicateDetectionServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    private final TransactionRepository repository = mock(TransactionRepository.class);
+    private final DuplicateDetectionService service = new DuplicateDetectionService(repository, null, 10, 1000);
+    private final User user = new User();
+
+    @Test
+    void groupsMatchingRowsWithinTheWindow() {
+        List<List<TransactionResponse>> groups = sweep(3,
+            row(1, "Coffee", 4.5, 0),
+            row(2, "  COFFEE ", 4.5, 2),
+            row(3, "Coffee", 4.5, 3),
+            row(4, "Coffee", 4.5, 4));
+
+        // The window is measured from the group's first row, so day 4 starts over on its own
+        assertEquals(List.of(List.of(1L, 2L, 3L)), ids(groups));
+    }
+
+    @Test
+    void differentTypeCurrencyOrTitleNeverGroup() {
+        List<List<TransactionResponse>> groups = sweep(7,
+            row(1, "Refund", 20, 0),
+            new TransactionResponse(2L, "Refund", 20.0, DAY.plusDays(1), TransactionType.INCOME, null, "INR"),
+            new TransactionResponse(3L, "Refund", 20.0, DAY.plusDays(1), TransactionType.EXPENSE, null, "USD"),
+            row(4, "Refund fee", 20, 1));
+
+        assertTrue(groups.isEmpty());
+    }
+
+    @Test
+    void amountsAreComparedInWholeCents() {
+        List<List<TransactionResponse>> groups = sweep(7,
+            row(1, "Taxi", 12.001, 0),
+            row(2, "Taxi", 12.004, 1),
+            row(3, "Taxi", 12.01, 1));
+
+        assertEquals(List.of(List.of(1L, 2L)), ids(groups));
+    }
+
+    @Test
+    void interleavedTitlesAtTheSameAmountFormSeparateGroups() {
+        List<List<TransactionResponse>> groups = sweep(5,
+            row(1, "Gym", 30, 0),
+            row(2, "Parking", 30, 1),
+            row(3, "Gym", 30, 2),
+            row(4, "Parking", 30, 3),
+            row(5, "Gym", 45, 0),
+            row(6, "Gym", 45, 6));
+
+        assertEquals(List.of(List.of(1L, 3L), List.of(2L, 4L)), ids(groups));
+    }
+
+    @Test
+    void zeroWindowOnlyGroupsSameDayRows() {
+        List<List<TransactionResponse>> groups = sweep(0,
+            row(1, "Lunch", 10, 0),
+            row(2, "Lunch", 10, 0),
+            row(3, "Lunch", 10, 1));
+
+        assertEquals(List.of(List.of(1L, 2L)), ids(groups));
+    }
+
+    @Test
+    void fingerprintsDifferByTypeAndCurrency() {
+        Transaction expense = transaction(TransactionType.EXPENSE, "INR");
+        long fingerprint = service.fingerprint(expense);
+
+        assertNotEquals(fingerprint, service.fingerprint(transaction(TransactionType.INCOME, "INR")));
+        assertNotEquals(fingerprint, service.fingerprint(transaction(TransactionType.EXPENSE, "USD")));
+        assertNotEquals(fingerprint, service.fingerprint(transaction(TransactionType.EXPENSE, null)));
+        // Spacing and case still don't matter
+        Transaction reentered = transaction(TransactionType.EXPENSE, "inr");
+        reentered.setTitle("  COFFEE ");
+        assertEquals(fingerprint, service.fingerprint(reentered));
+    }
+
+    private static Transaction transaction(TransactionType type, String currency) {
+        Transaction transaction = new Transaction();
+        transaction.setTitle("Coffee");
+        transaction.setAmount(120.0);
+        transaction.setDate(LocalDate.of(2025, 3, 2));
+        transaction.setType(type);
+        transaction.setCategory("Food");
+        transaction.setCurrency(currency);
+        return transaction;
+    }
+
+    private List<List<TransactionResponse>> sweep(int windowDays, TransactionResponse... rows) {
+        // Same order as the repository query: amount, then date
+        List<TransactionResponse> sorted = Arrays.stream(rows)
+            .sorted(Comparator.comparing(TransactionResponse::getAmount).thenComparing(TransactionResponse::getDate))
+            .toList();
+        when(repository.findResponsesByUserOrderByAmountAndDate(user)).thenReturn(sorted);
+        return service.findNearDuplicates(user, windowDays);
+    }
+
+    private static TransactionResponse row(long id, String title, double amount, int dayOffset) {
+        return new TransactionResponse(id, title, amount, DAY.plusDays(dayOffset), TransactionType.EXPENSE, "Misc", "INR");
+    }
+
+    private static List<List<Long>> ids(List<List<TransactionResponse>> groups) {
+        return groups.stream().map(g -> g.stream().map(TransactionResponse::getId).toList()).toList();
+    }
+}
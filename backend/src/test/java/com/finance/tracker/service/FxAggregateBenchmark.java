@@ -0,0 +1,129 @@
+package com.finance.tracker.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Conversion overhead on a 1M-row summary: 10 years of daily rates for 5 currencies, half the rows
+ * in the base currency. Compares a plain sum, converting every row at its date's rate, and the
+ * {@code getSummary} path (rows pre-grouped per currency and day, one conversion per group).
+ * Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class FxAggregateBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int DAYS = 3653;
+    private static final String BASE = "INR";
+    private static final String[] CURRENCIES = {"INR", "USD", "EUR", "GBP", "JPY"};
+    private static final LocalDate FIRST_DAY = LocalDate.of(2015, 1, 1);
+
+    @Test
+    void summaryConversionOverhead() throws Exception {
+        FxRateService fx = new FxRateService(new ByteArrayResource(ratesCsv()), BASE);
+        fx.load();
+
+        SplittableRandom random = new SplittableRandom(42);
+        double[] amounts = new double[ROWS];
+        int[] currencies = new int[ROWS];
+        LocalDate[] dates = new LocalDate[ROWS];
+        LocalDate[] calendar = new LocalDate[DAYS];
+        for (int d = 0; d < DAYS; d++) {
+            calendar[d] = FIRST_DAY.plusDays(d);
+        }
+        int[] days = new int[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            amounts[i] = Math.round(random.nextDouble(1, 5000) * 100) / 100.0;
+            currencies[i] = random.nextBoolean() ? 0 : random.nextInt(1, CURRENCIES.length);
+            days[i] = random.nextInt(DAYS);
+            dates[i] = calendar[days[i]];
+        }
+
+        // What the database hands back to getSummary: base rows summed, foreign rows summed per (currency, day)
+        double baseSum = 0;
+        double[][] groups = new double[CURRENCIES.length][DAYS];
+        for (int i = 0; i < ROWS; i++) {
+            if (currencies[i] == 0) {
+                baseSum += amounts[i];
+            } else {
+                groups[currencies[i]][days[i]] += amounts[i];
+            }
+        }
+        double groupedBase = baseSum;
+
+        double plain = measure("plain sum (no conversion)", () -> {
+            double sum = 0;
+            for (int i = 0; i < ROWS; i++) {
+                sum += amounts[i];
+            }
+            return sum;
+        });
+        double perRow = measure("convert every row", () -> {
+            double sum = 0;
+            for (int i = 0; i < ROWS; i++) {
+                sum += fx.convert(amounts[i], CURRENCIES[currencies[i]], BASE, dates[i]);
+            }
+            return sum;
+        });
+        double grouped = measure("convert per (currency, day) group", () -> {
+            double sum = groupedBase;
+            for (int c = 1; c < CURRENCIES.length; c++) {
+                for (int d = 0; d < DAYS; d++) {
+                    if (groups[c][d] != 0) {
+                        sum += fx.convert(groups[c][d], CURRENCIES[c], BASE, calendar[d]);
+                    }
+                }
+            }
+            return sum;
+        });
+
+        assertEquals(perRow, grouped, Math.abs(perRow) * 1e-9);
+        System.out.printf("FxAggregateBenchmark: converted total %.2f %s (unconverted %.2f)%n", perRow, BASE, plain);
+    }
+
+    private static double measure(String name, DoubleSupplier task) {
+        double result = 0;
+        for (int i = 0; i < 5; i++) {
+            result = task.getAsDouble();
+        }
+        long[] nanos = new long[15];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            result = task.getAsDouble();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long median = nanos[nanos.length / 2];
+        System.out.printf("FxAggregateBenchmark: %-34s median %7.2f ms, %6.1f ns/row%n",
+            name, median / 1e6, (double) median / ROWS);
+        return result;
+    }
+
+    // One quote per currency per day, drifting slowly, with every seventh day missing to exercise the forward fill
+    private static byte[] ratesCsv() {
+        double[] start = {74, 1, 0.9, 0.75, 120};
+        SplittableRandom random = new SplittableRandom(7);
+        StringBuilder csv = new StringBuilder("date,currency,units_per_usd\n");
+        for (int d = 0; d < DAYS; d++) {
+            if (d % 7 == 6) {
+                continue;
+            }
+            LocalDate date = FIRST_DAY.plusDays(d);
+            for (int c = 0; c < CURRENCIES.length; c++) {
+                if (!CURRENCIES[c].equals("USD")) {
+                    start[c] *= 1 + random.nextDouble(-0.002, 0.002);
+                    csv.append(date).append(',').append(CURRENCIES[c]).append(',').append(start[c]).append('\n');
+                }
+            }
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
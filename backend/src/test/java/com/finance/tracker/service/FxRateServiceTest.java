@@ -0,0 +1,92 @@
+package com.finance.tracker.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FxRateServiceTest {
+
+    private static final String RATES = """
+        date,currency,units_per_usd
+        # gaps on the 2nd and 4th; EUR starts a day late
+        2024-01-01,INR,80
+        2024-01-03,INR,84
+        2024-01-05,INR,88
+        2024-01-02,EUR,0.5
+        2024-01-05,EUR,0.25
+        """;
+
+    private FxRateService fx;
+
+    @BeforeEach
+    void load() throws Exception {
+        fx = new FxRateService(new ByteArrayResource(RATES.getBytes(StandardCharsets.UTF_8)), "inr");
+        fx.load();
+    }
+
+    @Test
+    void daysWithoutAQuoteCarryThePreviousRateForward() {
+        assertEquals(80, fx.rate("USD", "INR", LocalDate.of(2024, 1, 2)));
+        assertEquals(84, fx.rate("USD", "INR", LocalDate.of(2024, 1, 3)));
+        assertEquals(84, fx.rate("USD", "INR", LocalDate.of(2024, 1, 4)));
+        assertEquals(0.5, fx.rate("USD", "EUR", LocalDate.of(2024, 1, 4)));
+        assertEquals(0.25, fx.rate("USD", "EUR", LocalDate.of(2024, 1, 5)));
+    }
+
+    @Test
+    void daysBeforeACurrencysFirstQuoteUseThatQuote() {
+        assertEquals(0.5, fx.rate("USD", "EUR", LocalDate.of(2024, 1, 1)));
+    }
+
+    @Test
+    void datesOutsideTheFileClampToTheNearestDay() {
+        assertEquals(80, fx.rate("USD", "INR", LocalDate.of(2023, 6, 1)));
+        assertEquals(88, fx.rate("USD", "INR", LocalDate.of(2025, 6, 1)));
+        assertEquals(88, fx.rate("USD", "INR", null));
+    }
+
+    @Test
+    void crossRatesGoThroughUsd() {
+        assertEquals(168, fx.rate("EUR", "INR", LocalDate.of(2024, 1, 3)), 1e-9);
+        assertEquals(10 * 0.25 / 88, fx.convert(10, "INR", "EUR", LocalDate.of(2024, 1, 5)), 1e-12);
+    }
+
+    @Test
+    void usdIsAlwaysSupportedAndUnknownCodesAreRejected() {
+        assertTrue(fx.supports("usd"));
+        assertEquals("EUR", fx.normalize(" eur ", null));
+        assertEquals("INR", fx.normalize(null, "INR"));
+        assertThrows(RuntimeException.class, () -> fx.normalize("GBP", null));
+    }
+
+    @Test
+    void reloadPicksUpAppendedDaysAndKeepsRatesWhenTheFileIsBad(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rates.csv");
+        Files.writeString(file, RATES);
+        FxRateService reloading = new FxRateService(new FileSystemResource(file), "INR");
+        reloading.load();
+
+        Files.writeString(file, RATES + "2024-01-06,INR,90\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        reloading.reload();
+        assertEquals(90, reloading.rate("USD", "INR", LocalDate.of(2024, 1, 6)));
+
+        // Dropping EUR would strand rows stored in it
+        Files.writeString(file, "2024-01-07,INR,91\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+        reloading.reload();
+        assertEquals(90, reloading.rate("USD", "INR", LocalDate.of(2024, 1, 7)));
+        assertTrue(reloading.supports("EUR"));
+    }
+}
@@ -0,0 +1,164 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginRateLimiterTest {
+
+    // 60 per minute: one token per second
+    private static final long TOKEN = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000_000L);
+
+    @Test
+    void fullBucketAllowsABurstOfCapacityThenReportsTheWait() {
+        LoginRateLimiter.TokenBuckets buckets = new LoginRateLimiter.TokenBuckets(3, 60, now::get);
+
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(TOKEN, buckets.tryAcquire("a"));
+
+        now.addAndGet(TOKEN / 4);
+        assertEquals(TOKEN * 3 / 4, buckets.tryAcquire("a"));
+    }
+
+    @Test
+    void tokensRefillAtTheConfiguredRateUpToCapacity() {
+        LoginRateLimiter.TokenBuckets buckets = new LoginRateLimiter.TokenBuckets(3, 60, now::get);
+        for (int i = 0; i < 3; i++) {
+            buckets.tryAcquire("a");
+        }
+
+        now.addAndGet(TOKEN);
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(TOKEN, buckets.tryAcquire("a"));
+
+        // A long idle period refills to capacity, not beyond
+        now.addAndGet(TOKEN * 100);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("a"));
+        }
+        assertEquals(TOKEN, buckets.tryAcquire("a"));
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        LoginRateLimiter.TokenBuckets buckets = new LoginRateLimiter.TokenBuckets(1, 60, now::get);
+
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(TOKEN, buckets.tryAcquire("a"));
+        assertEquals(0, buckets.tryAcquire("b"));
+    }
+
+    @Test
+    void chargeCanLeaveTheBucketInDebt() {
+        LoginRateLimiter.TokenBuckets buckets = new LoginRateLimiter.TokenBuckets(2, 60, now::get);
+
+        buckets.charge("a", 5);
+        // Owing 5 tokens against a capacity of 2 means a 4-token wait before the next one
+        assertEquals(TOKEN * 4, buckets.tryAcquire("a"));
+        now.addAndGet(TOKEN * 4);
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(TOKEN, buckets.tryAcquire("a"));
+
+        buckets.charge("a", 0);
+        assertEquals(TOKEN, buckets.tryAcquire("a"));
+    }
+
+    @Test
+    void refundReturnsATokenButNeverBeyondCapacity() {
+        LoginRateLimiter.TokenBuckets buckets = new LoginRateLimiter.TokenBuckets(2, 60, now::get);
+
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(0, buckets.tryAcquire("a"));
+        buckets.refund("a");
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(TOKEN, buckets.tryAcquire("a"));
+
+        buckets.refund("b");
+        buckets.refund("b");
+        assertEquals(0, buckets.tryAcquire("b"));
+        assertEquals(0, buckets.tryAcquire("b"));
+        assertEquals(TOKEN, buckets.tryAcquire("b"));
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedCapacity() throws Exception {
+        LoginRateLimiter.TokenBuckets buckets = new LoginRateLimiter.TokenBuckets(50, 60, now::get);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        if (buckets.tryAcquire("shared") == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(50, granted.get());
+    }
+
+    @Test
+    void failuresBackOffTheAccountAcrossIpsAndEmailCase() {
+        LoginRateLimiter limiter = new LoginRateLimiter(100, 1, 3, 1, 2);
+
+        limiter.acquire("10.0.0.1", "User@Example.com");
+        limiter.recordFailure("10.0.0.1", "User@Example.com");
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+            () -> limiter.acquire("10.0.0.2", " user@example.com "));
+        assertEquals(60, e.getRetryAfterSeconds(), 1);
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.2", "other@example.com"));
+    }
+
+    @Test
+    void lockedAccountDoesNotSpendTheSharedIpBudget() {
+        LoginRateLimiter limiter = new LoginRateLimiter(3, 1, 1, 1, 0);
+
+        limiter.acquire("10.0.0.1", "victim@example.com");
+        for (int i = 0; i < 10; i++) {
+            assertThrows(TooManyRequestsException.class, () -> limiter.acquire("10.0.0.1", "victim@example.com"));
+        }
+        // Only the one successful attempt came out of the IP bucket
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.1", "a@example.com"));
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.1", "b@example.com"));
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquire("10.0.0.1", "c@example.com"));
+    }
+
+    @Test
+    void ipLimitAppliesWithoutAnEmail() {
+        LoginRateLimiter limiter = new LoginRateLimiter(2, 1, 100, 1, 2);
+
+        limiter.acquire("10.0.0.1", null);
+        limiter.acquire("10.0.0.1", null);
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquire("10.0.0.1", "a@example.com"));
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.2", null));
+    }
+}
@@ -0,0 +1,158 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.model.TransactionType;
+import com.finance.tracker.service.SnapshotCodec.Segment;
+import com.finance.tracker.service.SnapshotCodec.SegmentReader;
+import com.finance.tracker.service.SnapshotCodec.SegmentWriter;
+import com.finance.tracker.service.SnapshotCodec.Trailer;
+import com.finance.tracker.service.SnapshotCodec.TransactionRow;
+import com.finance.tracker.service.SnapshotCodec.UserRow;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotCodecTest {
+
+    private static final UserRow USER = new UserRow(7, "Zoë", "Ørsted", "zoe@example.com", null,
+        null, "東京都 1-2-3", "JPY", "$2a$10$hash");
+
+    @Test
+    void userAndTransactionsRoundTrip() {
+        List<TransactionRow> rows = List.of(
+            new TransactionRow(3, "Café crème ☕", 4.5, LocalDate.of(2026, 3, 10), TransactionType.EXPENSE, "Food", "EUR"),
+            // Dates move backwards as well as forwards between rows
+            new TransactionRow(4, "Salary", 250000.0, LocalDate.of(2025, 12, 31), TransactionType.INCOME, "Salary", null),
+            new TransactionRow(9, null, null, null, null, null, null),
+            new TransactionRow(10, "", -0.01, LocalDate.of(1970, 1, 1), TransactionType.EXPENSE, "", "INR"),
+            new TransactionRow(1_000_000, "Refund", 12.25, LocalDate.of(1969, 7, 20), TransactionType.INCOME, null, "USD"));
+
+        Segment segment = encode(USER, rows);
+        assertEquals(rows.size(), segment.transactions());
+
+        try (SegmentReader reader = new SegmentReader(segment)) {
+            assertEquals(USER, reader.readUser());
+            List<TransactionRow> decoded = new ArrayList<>();
+            for (TransactionRow row = reader.nextTransaction(); row != null; row = reader.nextTransaction()) {
+                decoded.add(row);
+            }
+            assertEquals(rows, decoded);
+        }
+    }
+
+    @Test
+    void emptySegmentHasOnlyTheUser() {
+        try (SegmentReader reader = new SegmentReader(encode(USER, List.of()))) {
+            assertEquals(USER, reader.readUser());
+            assertNull(reader.nextTransaction());
+        }
+    }
+
+    @Test
+    void fileRoundTripsSegmentsAndTrailer() throws IOException {
+        Segment first = encode(USER, List.of(row(1, 10.0)));
+        Segment second = encode(new UserRow(8, null, null, null, null, null, null, null, null), List.of(row(2, 20.0), row(3, 30.0)));
+        DataInputStream in = input(file(first, second));
+
+        SnapshotCodec.readHeader(in);
+        assertEquals(first.crc(), SnapshotCodec.readSegment(in).crc());
+        assertEquals(second.crc(), SnapshotCodec.readSegment(in).crc());
+        assertNull(SnapshotCodec.readSegment(in));
+        assertEquals(new Trailer(2, 3), SnapshotCodec.readTrailer(in));
+    }
+
+    @Test
+    void flippedPayloadByteFailsTheChecksum() throws IOException {
+        byte[] bytes = file(encode(USER, List.of(row(1, 10.0))));
+        // Header (7 bytes), then kind, length and crc (9 bytes) precede the payload
+        bytes[7 + 9 + 2] ^= 0x10;
+        DataInputStream in = input(bytes);
+        SnapshotCodec.readHeader(in);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> SnapshotCodec.readSegment(in));
+        assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+    }
+
+    @Test
+    void damagedFramingIsRejected() {
+        byte[] file = file(encode(USER, List.of(row(1, 10.0))));
+
+        byte[] badMagic = file.clone();
+        badMagic[0] = 'X';
+        assertThrows(RuntimeException.class, () -> SnapshotCodec.readHeader(input(badMagic)));
+
+        byte[] badKind = file.clone();
+        badKind[7] = 5;
+        assertThrows(RuntimeException.class, () -> readAll(badKind));
+
+        byte[] truncated = Arrays.copyOf(file, file.length - 4);
+        assertThrows(RuntimeException.class, () -> readAll(truncated));
+    }
+
+    @Test
+    void truncatedPayloadFailsWhileDecoding() {
+        Segment full = encode(USER, List.of(row(1, 10.0), row(2, 20.0)));
+        byte[] cut = Arrays.copyOf(full.payload(), full.payload().length / 2);
+        Segment segment = new Segment(cut, SnapshotCodec.crc(cut), -1);
+
+        assertThrows(RuntimeException.class, () -> {
+            try (SegmentReader reader = new SegmentReader(segment)) {
+                reader.readUser();
+                while (reader.nextTransaction() != null) {
+                    // drain
+                }
+            }
+        });
+    }
+
+    private static TransactionRow row(long id, double amount) {
+        return new TransactionRow(id, "Row " + id, amount, LocalDate.of(2026, 1, 1).plusDays(id), TransactionType.EXPENSE, "Misc", "INR");
+    }
+
+    private static Segment encode(UserRow user, List<TransactionRow> rows) {
+        SegmentWriter writer = new SegmentWriter();
+        writer.writeUser(user);
+        rows.forEach(writer::writeTransaction);
+        return writer.finish();
+    }
+
+    private static byte[] file(Segment... segments) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            SnapshotCodec.writeHeader(out);
+            long transactions = 0;
+            for (Segment segment : segments) {
+                SnapshotCodec.writeSegment(out, segment);
+                transactions += segment.transactions();
+            }
+            SnapshotCodec.writeTrailer(out, segments.length, transactions);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void readAll(byte[] file) throws IOException {
+        DataInputStream in = input(file);
+        SnapshotCodec.readHeader(in);
+        while (SnapshotCodec.readSegment(in) != null) {
+            // checksums are verified as each segment is read
+        }
+        SnapshotCodec.readTrailer(in);
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
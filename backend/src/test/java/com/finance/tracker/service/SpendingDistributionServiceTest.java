@@ -0,0 +1,183 @@
+package com.finance.tracker.service;
+
+import com.finance.tracker.dto.AmountDistribution;
+import com.finance.tracker.model.AmountSketch;
+import com.finance.tracker.model.TransactionType;
+import com.finance.tracker.model.User;
+import com.finance.tracker.repository.AmountSketchRepository;
+import com.finance.tracker.repository.TransactionRepository;
+import com.finance.tracker.repository.UserRepository;
+import com.tdunning.math.stats.MergingDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SpendingDistributionServiceTest {
+
+    private static final List<Double> MEDIAN = List.of(0.5);
+
+    private final AmountSketchRepository sketchRepository = mock(AmountSketchRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final FxRateService fxRateService = mock(FxRateService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SpendingDistributionService service =
+        new SpendingDistributionService(sketchRepository, transactionRepository, fxRateService, userRepository);
+    private final User user = new User();
+
+    @BeforeEach
+    void setUp() {
+        user.setId(1L);
+        when(sketchRepository.existsByUserId(1L)).thenReturn(true);
+        when(fxRateService.baseCurrencyOf(user)).thenReturn("INR");
+    }
+
+    @Test
+    void partialMonthsAtBothEndsComeFromRowsAndWholeMonthsFromDigests() {
+        when(sketchRepository.findForRange(eq(1L), isNull(), isNull(), any(), any()))
+            .thenReturn(List.of(sketch(LocalDate.of(2024, 2, 1), 100, 200)));
+        when(transactionRepository.findSketchRowsForRange(eq(1L), isNull(), isNull(), any(), any()))
+            .thenReturn(List.<Object[]>of(row(10, LocalDate.of(2024, 1, 20))), List.<Object[]>of(row(400, LocalDate.of(2024, 3, 5))));
+
+        AmountDistribution distribution = distribution(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 3, 10));
+
+        verify(sketchRepository).findForRange(1L, null, null, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 1));
+        assertEquals(List.of(
+            range(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 31)),
+            range(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 10))), rawRanges(2));
+        assertEquals(4, distribution.getCount());
+        assertEquals(10, distribution.getMin());
+        assertEquals(400, distribution.getMax());
+        assertEquals(710 / 4.0, distribution.getMean(), 1e-9);
+    }
+
+    @Test
+    void wholeMonthsNeedNoRows() {
+        distribution(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31));
+
+        verify(sketchRepository).findForRange(1L, null, null, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 1));
+        verify(transactionRepository, never()).findSketchRowsForRange(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void februaryEndsOnItsLastDayInLeapYears() {
+        distribution(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+        verify(sketchRepository).findForRange(1L, null, null, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 1));
+
+        distribution(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 28));
+        assertEquals(List.of(range(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 28))), rawRanges(1));
+        verify(sketchRepository, times(1)).findForRange(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void rangeWithinOrAcrossTwoPartialMonthsIsReadFromRowsOnly() {
+        distribution(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 20));
+        distribution(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 1));
+
+        assertEquals(List.of(
+            range(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 20)),
+            range(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 1))), rawRanges(2));
+        verify(sketchRepository, never()).findForRange(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void singleDayAtAMonthEndIsAPartialMonth() {
+        distribution(LocalDate.of(2024, 4, 30), LocalDate.of(2024, 4, 30));
+
+        assertEquals(List.of(range(LocalDate.of(2024, 4, 30), LocalDate.of(2024, 4, 30))), rawRanges(1));
+        verify(sketchRepository, never()).findForRange(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void openEndsCoverEveryMonth() {
+        distribution(null, null);
+
+        verify(sketchRepository).findForRange(1L, null, null, LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 1));
+        verify(transactionRepository, never()).findSketchRowsForRange(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void reversedRangeIsEmpty() {
+        AmountDistribution distribution = distribution(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 2, 1));
+
+        assertEquals(0, distribution.getCount());
+        verify(sketchRepository, never()).findForRange(anyLong(), any(), any(), any(), any());
+        verify(transactionRepository, never()).findSketchRowsForRange(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void digestsWrittenInTheVerboseEncodingStillRead() {
+        AmountSketch legacy = sketch(LocalDate.of(2024, 2, 1), 100, 200, 300);
+        MergingDigest digest = (MergingDigest) MergingDigest.fromBytes(ByteBuffer.wrap(legacy.getDigest()));
+        ByteBuffer verbose = ByteBuffer.allocate(digest.byteSize());
+        digest.asBytes(verbose);
+        legacy.setDigest(verbose.array());
+        when(sketchRepository.findForRange(eq(1L), isNull(), isNull(), any(), any())).thenReturn(List.of(legacy));
+
+        AmountDistribution distribution = distribution(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+
+        assertEquals(3, distribution.getCount());
+        assertEquals(100, distribution.getMin());
+        assertEquals(300, distribution.getMax());
+        assertEquals(200, distribution.getQuantiles().get("0.5"), 1e-6);
+    }
+
+    private AmountDistribution distribution(LocalDate from, LocalDate to) {
+        return service.getDistribution(user, null, null, from, to, MEDIAN);
+    }
+
+    private List<List<LocalDate>> rawRanges(int calls) {
+        ArgumentCaptor<LocalDate> from = ArgumentCaptor.forClass(LocalDate.class);
+        ArgumentCaptor<LocalDate> to = ArgumentCaptor.forClass(LocalDate.class);
+        verify(transactionRepository, times(calls)).findSketchRowsForRange(eq(1L), any(), any(), from.capture(), to.capture());
+        List<List<LocalDate>> ranges = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            ranges.add(range(from.getAllValues().get(i), to.getAllValues().get(i)));
+        }
+        return ranges;
+    }
+
+    private static List<LocalDate> range(LocalDate from, LocalDate to) {
+        return List.of(from, to);
+    }
+
+    private static Object[] row(double amount, LocalDate date) {
+        return new Object[] {TransactionType.EXPENSE, "food", date, amount, null};
+    }
+
+    private static AmountSketch sketch(LocalDate monthStart, double... amounts) {
+        MergingDigest digest = new MergingDigest(100);
+        double sum = 0;
+        for (double amount : amounts) {
+            digest.add(amount);
+            sum += amount;
+        }
+        digest.compress();
+        ByteBuffer buffer = ByteBuffer.allocate(digest.smallByteSize());
+        digest.asSmallBytes(buffer);
+
+        AmountSketch sketch = new AmountSketch();
+        sketch.setUserId(1L);
+        sketch.setType(TransactionType.EXPENSE);
+        sketch.setCategory("food");
+        sketch.setMonthStart(monthStart);
+        sketch.setCount(amounts.length);
+        sketch.setSum(sum);
+        sketch.setDigest(buffer.array());
+        return sketch;
+    }
+}
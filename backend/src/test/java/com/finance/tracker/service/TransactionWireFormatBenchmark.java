@@ -0,0 +1,101 @@
+package com.finance.tracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.finance.tracker.dto.TransactionResponse;
+import com.finance.tracker.model.Transaction;
+import com.finance.tracker.model.TransactionType;
+import com.finance.tracker.model.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bytes on the wire and serialization CPU for a 10k-row transaction list: the entity JSON the list
+ * endpoint used to return, the projected rows as JSON, Smile and CBOR, and the columnar layout
+ * (including building the columns) in the same three encodings. Mappers are configured the way
+ * Boot configures its message converters. Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class TransactionWireFormatBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final String[] TITLES = {"Grocery Store", "Coffee", "Monthly Salary", "Electricity Bill", "Uber ride", "Netflix", "Pharmacy"};
+    private static final String[] CATEGORIES = {"Food", "Transport", "Salary", "Utilities", "Entertainment", "Health", null};
+    private static final String[] CURRENCIES = {"INR", "INR", "INR", "USD", "EUR"};
+
+    @Test
+    void wireFormats() throws Exception {
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        User user = new User();
+        user.setId(1L);
+        user.setFirstName("Default");
+        user.setLastName("User");
+        user.setEmail("default@example.com");
+        user.setPhone("1234567890");
+        user.setPosition("Employee");
+        user.setAddress("Default Address");
+        user.setPassword("$2a$10$iJW5GkYcmKjJpxJ69331H.IFZ9qcKwnqxgZ9jAZwZQ9F7HSPLjY9O");
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<Transaction> entities = new ArrayList<>(ROWS);
+        List<TransactionResponse> rows = new ArrayList<>(ROWS);
+        LocalDate today = LocalDate.of(2026, 10, 1);
+        for (int i = 0; i < ROWS; i++) {
+            int kind = random.nextInt(TITLES.length);
+            Transaction t = new Transaction();
+            t.setId((long) i + 1);
+            t.setTitle(TITLES[kind]);
+            t.setAmount(Math.round(random.nextDouble(1, 5000) * 100) / 100.0);
+            t.setDate(today.minusDays(random.nextInt(730)));
+            t.setType(kind == 2 ? TransactionType.INCOME : TransactionType.EXPENSE);
+            t.setCategory(CATEGORIES[kind]);
+            t.setCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+            t.setUser(user);
+            entities.add(t);
+            rows.add(new TransactionResponse(t.getId(), t.getTitle(), t.getAmount(), t.getDate(), t.getType(), t.getCategory(), t.getCurrency()));
+        }
+
+        measure("entity JSON (previous)", () -> write(json, entities));
+        measure("rows JSON", () -> write(json, rows));
+        measure("rows Smile", () -> write(smile, rows));
+        measure("rows CBOR", () -> write(cbor, rows));
+        measure("columnar JSON", () -> write(json, TransactionService.toColumns(rows)));
+        measure("columnar Smile", () -> write(smile, TransactionService.toColumns(rows)));
+        measure("columnar CBOR", () -> write(cbor, TransactionService.toColumns(rows)));
+    }
+
+    private static byte[] write(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void measure(String name, Supplier<byte[]> task) {
+        byte[] bytes = null;
+        for (int i = 0; i < 20; i++) {
+            bytes = task.get();
+        }
+        long[] nanos = new long[25];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            bytes = task.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long median = nanos[nanos.length / 2];
+        System.out.printf("TransactionWireFormatBenchmark: %-24s %8.1f KB %7.2f ms %6.0f ns/row%n",
+            name, bytes.length / 1024.0, median / 1e6, (double) median / ROWS);
+    }
+}